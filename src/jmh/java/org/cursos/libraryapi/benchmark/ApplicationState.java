@@ -0,0 +1,67 @@
+package org.cursos.libraryapi.benchmark;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.cursos.libraryapi.Application;
+import org.cursos.libraryapi.resource.model.dto.BookDTO;
+import org.cursos.libraryapi.resource.model.entity.Book;
+import org.cursos.libraryapi.resource.services.BookService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Boots the whole application against an embedded H2 database once per
+ * trial and seeds a book for the read and update benchmarks.
+ */
+@State(Scope.Benchmark)
+public class ApplicationState {
+	
+	ConfigurableApplicationContext context;
+	
+	MockMvc mvc;
+	
+	ObjectMapper objectMapper;
+	
+	BookService service;
+	
+	Long bookId;
+	
+	byte[] bookJson;
+	
+	private final AtomicLong sequence = new AtomicLong();
+	
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		System.setProperty("spring.devtools.restart.enabled", "false");
+		context = new SpringApplicationBuilder(Application.class)
+				.run("--server.port=0",
+						"--spring.main.banner-mode=off",
+						"--logging.level.root=warn",
+						"--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_ON_EXIT=FALSE");
+		mvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+		objectMapper = context.getBean(ObjectMapper.class);
+		service = context.getBean(BookService.class);
+		
+		bookId = service.save(Book.builder().title("My book").author("Author").isbn(nextIsbn()).build()).getId();
+		bookJson = objectMapper.writeValueAsBytes(BookDTO.builder().title("My book").author("Author").build());
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+	
+	String nextIsbn() {
+		return "benchmark-" + sequence.incrementAndGet();
+	}
+}
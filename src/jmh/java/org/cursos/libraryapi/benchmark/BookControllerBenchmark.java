@@ -0,0 +1,62 @@
+package org.cursos.libraryapi.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.cursos.libraryapi.resource.model.dto.BookDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+/**
+ * Create, get and update through MockMvc, plus the raw Jackson path the
+ * controller goes through for every BookDTO.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookControllerBenchmark {
+	
+	@Benchmark
+	public MvcResult create(ApplicationState state) throws Exception {
+		BookDTO dto = BookDTO.builder().title("My book").author("Author").isbn(state.nextIsbn()).build();
+		return state.mvc.perform(MockMvcRequestBuilders.post("/api/books")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(state.objectMapper.writeValueAsBytes(dto)))
+				.andReturn();
+	}
+	
+	@Benchmark
+	public MvcResult get(ApplicationState state) throws Exception {
+		return state.mvc.perform(MockMvcRequestBuilders.get("/api/books/" + state.bookId)
+				.accept(MediaType.APPLICATION_JSON))
+				.andReturn();
+	}
+	
+	@Benchmark
+	public MvcResult update(ApplicationState state) throws Exception {
+		return state.mvc.perform(MockMvcRequestBuilders.put("/api/books/" + state.bookId)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(state.bookJson))
+				.andReturn();
+	}
+	
+	@Benchmark
+	public byte[] serialize(ApplicationState state) throws Exception {
+		return state.objectMapper.writeValueAsBytes(
+				BookDTO.builder().id(state.bookId).title("My book").author("Author").isbn("123456").build());
+	}
+	
+	@Benchmark
+	public BookDTO deserialize(ApplicationState state) throws Exception {
+		return state.objectMapper.readValue(state.bookJson, BookDTO.class);
+	}
+}
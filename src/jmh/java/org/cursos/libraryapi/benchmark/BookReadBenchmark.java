@@ -0,0 +1,98 @@
+package org.cursos.libraryapi.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.cursos.libraryapi.resource.model.dto.BookDTO;
+import org.cursos.libraryapi.resource.model.entity.Book;
+import org.cursos.libraryapi.resource.model.mapper.BookMapper;
+import org.cursos.libraryapi.resource.repository.BookRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Entity reads mapped to dtos, in read-write and read-only transactions,
+ * against dto projections. Run with -prof gc (the default of the benchmark
+ * profile) to compare the allocation per read.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookReadBenchmark {
+	
+	static final int PAGE_SIZE = 50;
+	
+	@State(Scope.Benchmark)
+	public static class Reads {
+		
+		BookRepository repository;
+		
+		BookMapper mapper;
+		
+		TransactionTemplate readWrite;
+		
+		TransactionTemplate readOnly;
+		
+		@Setup(Level.Trial)
+		public void setUp(ApplicationState state) {
+			repository = state.context.getBean(BookRepository.class);
+			mapper = state.context.getBean(BookMapper.class);
+			PlatformTransactionManager transactionManager = state.context.getBean(PlatformTransactionManager.class);
+			readWrite = new TransactionTemplate(transactionManager);
+			readOnly = new TransactionTemplate(transactionManager);
+			readOnly.setReadOnly(true);
+			
+			List<Book> books = new ArrayList<>();
+			for(int i = 0; i < PAGE_SIZE; i++) {
+				books.add(Book.builder().title("My book " + i).author("Author").isbn(state.nextIsbn()).build());
+			}
+			state.service.saveAll(books);
+		}
+	}
+	
+	@Benchmark
+	public Optional<BookDTO> getEntity(ApplicationState state, Reads reads) {
+		return reads.readWrite.execute(status -> reads.repository.findById(state.bookId).map(reads.mapper::toDto));
+	}
+	
+	@Benchmark
+	public Optional<BookDTO> getEntityReadOnly(ApplicationState state, Reads reads) {
+		return reads.readOnly.execute(status -> reads.repository.findById(state.bookId).map(reads.mapper::toDto));
+	}
+	
+	@Benchmark
+	public Optional<BookDTO> getProjection(ApplicationState state, Reads reads) {
+		return reads.repository.findDtoById(state.bookId);
+	}
+	
+	@Benchmark
+	public List<BookDTO> listEntities(Reads reads) {
+		return reads.readWrite.execute(status -> reads.mapper.toDtos(reads.repository.findAll(PageRequest.of(0, PAGE_SIZE)).getContent()));
+	}
+	
+	@Benchmark
+	public List<BookDTO> listEntitiesReadOnly(Reads reads) {
+		return reads.readOnly.execute(status -> reads.mapper.toDtos(reads.repository.findAll(PageRequest.of(0, PAGE_SIZE)).getContent()));
+	}
+	
+	@Benchmark
+	public List<BookDTO> listProjection(Reads reads) {
+		return reads.repository.findDtosAfterId(0L, PageRequest.of(0, PAGE_SIZE)).getContent();
+	}
+}
@@ -0,0 +1,41 @@
+package org.cursos.libraryapi.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.cursos.libraryapi.resource.model.entity.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookServiceBenchmark {
+	
+	@Benchmark
+	public Book save(ApplicationState state) {
+		return state.service.save(Book.builder().title("My book").author("Author").isbn(state.nextIsbn()).build());
+	}
+	
+	@Benchmark
+	public Book saveDuplicated(ApplicationState state) {
+		try {
+			return state.service.save(Book.builder().title("My book").author("Author").isbn("benchmark-1").build());
+		} catch (RuntimeException e) {
+			return null;
+		}
+	}
+	
+	@Benchmark
+	public Page<Book> search(ApplicationState state) {
+		return state.service.search("my boo", PageRequest.of(0, 20));
+	}
+}
@@ -0,0 +1,92 @@
+package org.cursos.libraryapi.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.cursos.libraryapi.Application;
+import org.cursos.libraryapi.resource.model.entity.Book;
+import org.cursos.libraryapi.resource.services.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * GET /api/books/{id} over real HTTP for a small set of hot books, with and
+ * without the serialized response cache. Run with -prof gc to compare the
+ * allocation per request; the client runs in the same JVM, so the absolute
+ * numbers include its share.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+public class HotReadBenchmark {
+	
+	static final int HOT_BOOKS = 100;
+	
+	@Param({ "false", "true" })
+	boolean responseCache;
+	
+	ConfigurableApplicationContext context;
+	
+	HttpClient client;
+	
+	List<HttpRequest> reads = new ArrayList<>();
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		System.setProperty("spring.devtools.restart.enabled", "false");
+		context = new SpringApplicationBuilder(Application.class)
+				.run("--server.port=0",
+						"--spring.main.banner-mode=off",
+						"--logging.level.root=warn",
+						"--spring.datasource.url=jdbc:h2:mem:hotreads;DB_CLOSE_ON_EXIT=FALSE",
+						"--library.response-cache.enabled=" + responseCache);
+		List<Book> books = new ArrayList<>();
+		for(int i = 0; i < HOT_BOOKS; i++) {
+			books.add(Book.builder().title("The history of book number " + i).author("Author " + i).isbn("hot-" + i).build());
+		}
+		
+		int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+		client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+		for(Book book : context.getBean(BookService.class).saveAll(books)) {
+			reads.add(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/books/" + book.getId()))
+					.header("Accept", "application/json")
+					.build());
+		}
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+	
+	@Benchmark
+	public int get() throws Exception {
+		HttpRequest read = reads.get(ThreadLocalRandom.current().nextInt(HOT_BOOKS));
+		return client.send(read, HttpResponse.BodyHandlers.ofByteArray()).statusCode();
+	}
+}
@@ -0,0 +1,189 @@
+package org.cursos.libraryapi.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.cursos.libraryapi.Application;
+import org.cursos.libraryapi.resource.model.entity.Book;
+import org.cursos.libraryapi.resource.services.BookService;
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Load test of the settings in application-perf.properties. Each setting is
+ * applied alone on top of the framework defaults ("defaults" undoes the
+ * batching of application.properties), then the whole perf profile, whose
+ * url settings are reapplied to the TCP database below. The
+ * database is an H2 TCP server, so every statement pays a network round trip
+ * as it would against a real database. The full-text index is kept in
+ * memory so its commits do not drown the differences between settings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(32)
+@Fork(1)
+public class PersistenceTuningBenchmark {
+	
+	static final int SEED_SIZE = 10000;
+	
+	static final int IMPORT_SIZE = 200;
+	
+	static final Map<String, String[]> SETTINGS = new HashMap<>();
+	
+	static {
+		SETTINGS.put("defaults", new String[0]);
+		SETTINGS.put("pool", new String[] {
+				"spring.datasource.hikari.maximum-pool-size=16",
+				"spring.datasource.hikari.minimum-idle=16" });
+		SETTINGS.put("autocommit", new String[] {
+				"spring.datasource.hikari.auto-commit=false",
+				"spring.jpa.properties.hibernate.connection.provider_disables_autocommit=true" });
+		SETTINGS.put("batching", new String[] {
+				"spring.jpa.properties.hibernate.jdbc.batch_size=50",
+				"spring.jpa.properties.hibernate.order_inserts=true",
+				"spring.jpa.properties.hibernate.order_updates=true" });
+		SETTINGS.put("statement-cache", new String[] {
+				"spring.jpa.properties.hibernate.query.in_clause_parameter_padding=true",
+				"spring.jpa.properties.hibernate.query.plan_cache_max_size=2048" });
+		SETTINGS.put("open-in-view", new String[] {
+				"spring.jpa.open-in-view=false" });
+	}
+	
+	@Param({ "defaults", "pool", "autocommit", "batching", "statement-cache", "open-in-view", "perf" })
+	String setting;
+	
+	Server database;
+	
+	ConfigurableApplicationContext context;
+	
+	HttpClient client;
+	
+	String baseUrl;
+	
+	long firstId;
+	
+	private final AtomicLong sequence = new AtomicLong();
+	
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		System.setProperty("spring.devtools.restart.enabled", "false");
+		database = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+		String url = "jdbc:h2:tcp://localhost:" + database.getPort() + "/mem:tuning;DB_CLOSE_DELAY=-1";
+		if("statement-cache".equals(setting) || "perf".equals(setting)) {
+			url += ";QUERY_CACHE_SIZE=64";
+		}
+		
+		List<String> args = new ArrayList<>(Arrays.asList(
+				"--server.port=0",
+				"--spring.main.banner-mode=off",
+				"--logging.level.root=warn",
+				"--spring.datasource.url=" + url,
+				"--spring.jpa.hibernate.ddl-auto=create-drop",
+				"--spring.jpa.properties.hibernate.search.backend.directory.type=local-heap"));
+		if("perf".equals(setting)) {
+			args.add("--spring.profiles.active=perf");
+		} else {
+			args.add("--spring.jpa.properties.hibernate.jdbc.batch_size=0");
+			args.add("--spring.jpa.properties.hibernate.order_inserts=false");
+			Arrays.stream(SETTINGS.get(setting)).forEach(property -> args.add("--" + property));
+		}
+		context = new SpringApplicationBuilder(Application.class).run(args.toArray(new String[0]));
+		BookService service = context.getBean(BookService.class);
+		firstId = service.save(Book.builder().title("My book").author("Author").isbn(nextIsbn()).build()).getId();
+		List<Book> seed = new ArrayList<>();
+		for(int i = 1; i < SEED_SIZE; i++) {
+			seed.add(Book.builder().title("My book " + i).author("Author " + i % 100).isbn(nextIsbn()).build());
+		}
+		service.saveAll(seed);
+		
+		baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort() + "/api/books";
+		client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+		database.stop();
+	}
+	
+	@Benchmark
+	public int create() throws Exception {
+		return send(HttpRequest.newBuilder(URI.create(baseUrl))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(
+						"{\"title\":\"My book\",\"author\":\"Author\",\"isbn\":\"" + nextIsbn() + "\"}")));
+	}
+	
+	@Benchmark
+	public int update() throws Exception {
+		return send(HttpRequest.newBuilder(URI.create(baseUrl + "/" + randomId()))
+				.header("Content-Type", "application/json")
+				.PUT(HttpRequest.BodyPublishers.ofString("{\"title\":\"Updated\",\"author\":\"Author\"}")));
+	}
+	
+	@Benchmark
+	public int find() throws Exception {
+		return send(HttpRequest.newBuilder(URI.create(baseUrl + "?author=Author%20" + ThreadLocalRandom.current().nextInt(100) + "&size=20")));
+	}
+	
+	@Benchmark
+	public int lookup() throws Exception {
+		StringBuilder ids = new StringBuilder();
+		for(int i = 0; i < 25; i++) {
+			ids.append(i == 0 ? "" : ",").append(randomId());
+		}
+		return send(HttpRequest.newBuilder(URI.create(baseUrl + "/batch?ids=" + ids)));
+	}
+	
+	@Benchmark
+	public int bulkImport() throws Exception {
+		StringBuilder json = new StringBuilder();
+		for(int i = 0; i < IMPORT_SIZE; i++) {
+			json.append("{\"title\":\"Imported\",\"author\":\"Author\",\"isbn\":\"").append(nextIsbn()).append("\"}\n");
+		}
+		return send(HttpRequest.newBuilder(URI.create(baseUrl + "/bulk"))
+				.header("Content-Type", "application/x-ndjson")
+				.POST(HttpRequest.BodyPublishers.ofString(json.toString())));
+	}
+	
+	private int send(HttpRequest.Builder request) throws Exception {
+		return client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+	}
+	
+	private long randomId() {
+		return firstId + ThreadLocalRandom.current().nextInt(SEED_SIZE);
+	}
+	
+	private String nextIsbn() {
+		return "tuning-" + sequence.incrementAndGet();
+	}
+}
@@ -0,0 +1,112 @@
+package org.cursos.libraryapi.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.cursos.libraryapi.resource.exception.ApiErrors;
+import org.cursos.libraryapi.resource.exception.BusinessException;
+import org.cursos.libraryapi.resource.exception.ErrorCode;
+import org.cursos.libraryapi.resource.model.dto.BookDTO;
+import org.cursos.libraryapi.resource.model.entity.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+/**
+ * Duplicate isbn rejections, the common outcome of retried imports: through
+ * MockMvc for a single create and a bulk import, and the raw cost of
+ * throwing the exception 100 frames deep and building its error body,
+ * against a stack trace capturing exception with a new body as before.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RejectionBenchmark {
+	
+	static final int DEPTH = 100;
+	
+	static final int IMPORT_SIZE = 500;
+	
+	@State(Scope.Benchmark)
+	public static class Duplicates {
+		
+		byte[] book;
+		
+		byte[] books;
+		
+		@Setup(Level.Trial)
+		public void setUp(ApplicationState state) throws Exception {
+			String isbn = state.nextIsbn();
+			state.service.save(Book.builder().title("My book").author("Author").isbn(isbn).build());
+			BookDTO duplicate = BookDTO.builder().title("My book").author("Author").isbn(isbn).build();
+			book = state.objectMapper.writeValueAsBytes(duplicate);
+			BookDTO[] duplicates = new BookDTO[IMPORT_SIZE];
+			Arrays.fill(duplicates, duplicate);
+			books = state.objectMapper.writeValueAsBytes(duplicates);
+		}
+	}
+	
+	@Benchmark
+	public MvcResult rejectCreate(ApplicationState state, Duplicates duplicates) throws Exception {
+		return state.mvc.perform(MockMvcRequestBuilders.post("/api/books")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(duplicates.book))
+				.andReturn();
+	}
+	
+	@Benchmark
+	public MvcResult rejectImport(ApplicationState state, Duplicates duplicates) throws Exception {
+		return state.mvc.perform(MockMvcRequestBuilders.post("/api/books/bulk")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(duplicates.books))
+				.andReturn();
+	}
+	
+	@Benchmark
+	public Object stackless() {
+		try {
+			return reject(DEPTH, true);
+		} catch (BusinessException e) {
+			return ApiErrors.of(e);
+		}
+	}
+	
+	@Benchmark
+	public Object stackful() {
+		try {
+			return reject(DEPTH, false);
+		} catch (StackfulException e) {
+			return Arrays.asList(e.getMessage());
+		}
+	}
+	
+	private static Object reject(int depth, boolean stackless) {
+		if(depth > 0) {
+			return reject(depth - 1, stackless);
+		}
+		if(stackless) {
+			throw new BusinessException(ErrorCode.DUPLICATE_ISBN);
+		}
+		throw new StackfulException(ErrorCode.DUPLICATE_ISBN.getMessage());
+	}
+	
+	static class StackfulException extends RuntimeException {
+		
+		StackfulException(String message) {
+			super(message);
+		}
+	}
+}
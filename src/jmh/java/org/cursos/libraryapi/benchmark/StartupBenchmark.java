@@ -0,0 +1,133 @@
+package org.cursos.libraryapi.benchmark;
+
+import java.io.File;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to first request of a freshly started application, with and without
+ * the AppCDS archive and the fast-start profile. Each invocation starts a
+ * new JVM from the layout built by mvn -Pcds -DskipTests package and polls
+ * until it answers; the resident set size at that point is printed at the
+ * end of the trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StartupBenchmark {
+	
+	private static final Path CDS = Paths.get("target", "cds");
+	
+	@Param({ "classpath", "lazy", "cds", "cds-lazy" })
+	String mode;
+	
+	HttpClient client;
+	
+	List<Long> rss = new ArrayList<>();
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		if(!Files.exists(CDS.resolve("library-api.jsa"))) {
+			throw new IllegalStateException("Run mvn -Pcds -DskipTests package first");
+		}
+		client = HttpClient.newHttpClient();
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		System.out.println();
+		System.out.println(mode + " RSS at first request (kB): " + rss);
+	}
+	
+	@Benchmark
+	public int firstRequest() throws Exception {
+		int port = freePort();
+		Process app = new ProcessBuilder(command(port))
+				.directory(CDS.toFile())
+				.redirectOutput(ProcessBuilder.Redirect.DISCARD)
+				.redirectError(ProcessBuilder.Redirect.DISCARD)
+				.start();
+		try {
+			HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/books/0")).build();
+			while(true) {
+				try {
+					int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+					rss.add(residentKb(app.pid()));
+					return status;
+				} catch (ConnectException e) {
+					if(!app.isAlive()) {
+						throw new IllegalStateException("Application exited with " + app.exitValue());
+					}
+					Thread.sleep(10);
+				}
+			}
+		} finally {
+			app.destroy();
+			app.waitFor();
+		}
+	}
+	
+	private List<String> command(int port) throws Exception {
+		List<String> command = new ArrayList<>();
+		command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		if(mode.startsWith("cds")) {
+			command.add("-XX:SharedArchiveFile=library-api.jsa");
+			command.add("-Xlog:cds=error");
+		}
+		command.add("-jar");
+		command.add(cdsJar());
+		command.add("--server.port=" + port);
+		command.add("--spring.main.banner-mode=off");
+		if(mode.endsWith("lazy")) {
+			command.add("--spring.profiles.active=fast-start");
+		}
+		return command;
+	}
+	
+	private static String cdsJar() {
+		File[] jars = CDS.toFile().listFiles((dir, name) -> name.endsWith("-cds.jar"));
+		return jars[0].getName();
+	}
+	
+	private static int freePort() throws Exception {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+	
+	private static long residentKb(long pid) throws Exception {
+		for(String line : Files.readAllLines(Paths.get("/proc", String.valueOf(pid), "status"))) {
+			if(line.startsWith("VmRSS:")) {
+				return Long.parseLong(line.replaceAll("\\D", ""));
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,86 @@
+package org.cursos.libraryapi.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+import org.cursos.libraryapi.Application;
+import org.cursos.libraryapi.resource.model.entity.Book;
+import org.cursos.libraryapi.resource.services.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Load test of platform against virtual request threads: 256 concurrent
+ * clients run searches (uncached, so each one blocks on JDBC) against the
+ * real embedded Tomcat.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(256)
+@Fork(1)
+public class ThreadModelBenchmark {
+	
+	@Param({ "platform", "virtual" })
+	String mode;
+	
+	ConfigurableApplicationContext context;
+	
+	HttpClient client;
+	
+	HttpRequest search;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		System.setProperty("spring.devtools.restart.enabled", "false");
+		context = new SpringApplicationBuilder(Application.class)
+				.run("--server.port=0",
+						"--spring.main.banner-mode=off",
+						"--logging.level.root=warn",
+						"--spring.datasource.url=jdbc:h2:mem:threads;DB_CLOSE_ON_EXIT=FALSE",
+						"--library.threads.virtual=" + "virtual".equals(mode),
+						"--library.threads.max-concurrent-requests=1000");
+		// overrides given as default properties lose to application.properties; make sure this one took
+		if(context.containsBean("virtualThreadsProtocolHandlerCustomizer") != "virtual".equals(mode)) {
+			throw new IllegalStateException("Context did not start in " + mode + " mode");
+		}
+		BookService service = context.getBean(BookService.class);
+		for(int i = 0; i < 1000; i++) {
+			service.save(Book.builder().title("My book " + i).author("Author").isbn("threads-" + i).build());
+		}
+		
+		int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+		client = HttpClient.newHttpClient();
+		search = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/books?title=My%20book%201&size=20")).build();
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+	
+	@Benchmark
+	public int search() throws Exception {
+		return client.send(search, HttpResponse.BodyHandlers.discarding()).statusCode();
+	}
+}
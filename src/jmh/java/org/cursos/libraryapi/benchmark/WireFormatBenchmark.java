@@ -0,0 +1,86 @@
+package org.cursos.libraryapi.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.cursos.libraryapi.resource.model.dto.BookDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+/**
+ * Encoding and decoding a batch of 1000 books in each wire format. The
+ * plain and gzipped sizes are printed at setup, since bandwidth matters as
+ * much as CPU for the service-to-service callers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+	
+	@Param({ "json", "cbor", "smile" })
+	String format;
+	
+	ObjectWriter writer;
+	
+	ObjectReader reader;
+	
+	List<BookDTO> books;
+	
+	byte[] encoded;
+	
+	@Setup
+	public void setUp() throws Exception {
+		ObjectMapper mapper = "cbor".equals(format) ? new CBORMapper()
+				: "smile".equals(format) ? new SmileMapper()
+				: new ObjectMapper();
+		TypeReference<List<BookDTO>> type = new TypeReference<List<BookDTO>>() { };
+		writer = mapper.writerFor(type);
+		reader = mapper.readerFor(type);
+		
+		books = new ArrayList<>();
+		for(long i = 0; i < 1000; i++) {
+			books.add(BookDTO.builder().id(100000 + i).title("The history of book number " + i)
+					.author("Author " + (i % 50)).isbn("978-3-16-" + (148410 + i)).version(i % 7).build());
+		}
+		encoded = writer.writeValueAsBytes(books);
+		
+		ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+			gzip.write(encoded);
+		}
+		System.out.println();
+		System.out.println(format + ": " + encoded.length + " bytes, " + gzipped.size() + " gzipped");
+	}
+	
+	@Benchmark
+	public byte[] encode() throws Exception {
+		return writer.writeValueAsBytes(books);
+	}
+	
+	@Benchmark
+	public List<BookDTO> decode() throws Exception {
+		return reader.readValue(encoded);
+	}
+}
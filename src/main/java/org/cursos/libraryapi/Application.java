@@ -1,16 +1,18 @@
 package org.cursos.libraryapi;
 
-import org.modelmapper.ModelMapper;
+import org.cursos.libraryapi.resource.model.mapper.BookMapper;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 
 @SpringBootApplication
+@EnableCaching
 public class Application {
 	
 	@Bean
-	public ModelMapper modelMapper() {
-		return new ModelMapper();
+	public BookMapper bookMapper() {
+		return new BookMapper();
 	}
 	
 	public static void main(String[] args) {
@@ -0,0 +1,33 @@
+package org.cursos.libraryapi.resource.cache;
+
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+/**
+ * The spring.cache Caffeine caches, made transaction aware: an eviction
+ * inside a transaction, such as the one of BookServiceImpl.update, only
+ * happens once it commits. Evicting earlier would let a concurrent read put
+ * the old book back until the entry expires.
+ */
+@Configuration
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+	
+	@Bean
+	public CacheManager cacheManager(CacheProperties properties) {
+		CaffeineCacheManager caffeine = new CaffeineCacheManager();
+		if(StringUtils.hasText(properties.getCaffeine().getSpec())) {
+			caffeine.setCacheSpecification(properties.getCaffeine().getSpec());
+		}
+		if(!properties.getCacheNames().isEmpty()) {
+			caffeine.setCacheNames(properties.getCacheNames());
+		}
+		return new TransactionAwareCacheManagerProxy(caffeine);
+	}
+}
@@ -0,0 +1,120 @@
+package org.cursos.libraryapi.resource.cache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Recent responses by Idempotency-Key, so a retried request gets the original
+ * response instead of running again. Entries expire after a fixed time and
+ * the least used ones are dropped past a maximum count.
+ * 
+ * Concurrent requests with the same key are serialized on one of a fixed set
+ * of lock stripes, chosen by the key hash: the first runs the action, the
+ * others wait for it and replay its response. Requests with unrelated keys
+ * only contend when their keys share a stripe.
+ */
+@Component
+public class IdempotencyStore {
+	
+	private final Cache<String, Entry> responses;
+	
+	private final ReentrantLock[] locks;
+	
+	public IdempotencyStore(@Value("${library.idempotency.max-keys:100000}") long maxKeys,
+			@Value("${library.idempotency.ttl-seconds:86400}") long ttlSeconds,
+			@Value("${library.idempotency.lock-stripes:64}") int stripes) {
+		this.responses = Caffeine.newBuilder()
+				.maximumSize(maxKeys)
+				.expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+				.build();
+		this.locks = new ReentrantLock[Integer.highestOneBit(Math.max(1, stripes - 1)) << 1];
+		for(int i = 0; i < locks.length; i++) {
+			locks[i] = new ReentrantLock();
+		}
+	}
+	
+	/**
+	 * Runs the action once per key and remembers its result. A request that
+	 * reuses a key with a different fingerprint is reported as a conflict and
+	 * nothing runs. Failed actions are not remembered, so they can be retried.
+	 */
+	public <T> Outcome<T> execute(String key, String fingerprint, Supplier<T> action) {
+		Entry entry = responses.getIfPresent(key);
+		if(entry != null) {
+			return replay(entry, fingerprint);
+		}
+		
+		ReentrantLock lock = locks[stripe(key)];
+		lock.lock();
+		try {
+			entry = responses.getIfPresent(key);
+			if(entry != null) {
+				return replay(entry, fingerprint);
+			}
+			T value = action.get();
+			responses.put(key, new Entry(fingerprint, value));
+			return new Outcome<T>(value, false, false);
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	private static <T> Outcome<T> replay(Entry entry, String fingerprint) {
+		if(!entry.fingerprint.equals(fingerprint)) {
+			return new Outcome<T>(null, false, true);
+		}
+		return new Outcome<T>((T) entry.value, true, false);
+	}
+	
+	private int stripe(String key) {
+		int hash = key.hashCode();
+		return (hash ^ (hash >>> 16)) & (locks.length - 1);
+	}
+	
+	private static final class Entry {
+		
+		private final String fingerprint;
+		
+		private final Object value;
+		
+		Entry(String fingerprint, Object value) {
+			this.fingerprint = fingerprint;
+			this.value = value;
+		}
+	}
+	
+	public static final class Outcome<T> {
+		
+		private final T value;
+		
+		private final boolean replayed;
+		
+		private final boolean conflict;
+		
+		Outcome(T value, boolean replayed, boolean conflict) {
+			this.value = value;
+			this.replayed = replayed;
+			this.conflict = conflict;
+		}
+		
+		public T getValue() {
+			return value;
+		}
+		
+		public boolean isReplayed() {
+			return replayed;
+		}
+		
+		public boolean isConflict() {
+			return conflict;
+		}
+	}
+}
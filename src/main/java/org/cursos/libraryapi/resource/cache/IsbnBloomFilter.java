@@ -0,0 +1,88 @@
+package org.cursos.libraryapi.resource.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Lock-free Bloom filter of the isbns already stored. A negative answer means
+ * the isbn is definitely new, so the database lookup can be skipped. Until it
+ * is warmed up every isbn is reported as possibly present.
+ * 
+ * Deleted isbns are never removed from the filter: they only cost a database
+ * lookup (a false positive) until the next restart rebuilds it.
+ */
+@Component
+public class IsbnBloomFilter {
+	
+	private final AtomicLongArray bits;
+	
+	private final long bitCount;
+	
+	private final int hashCount;
+	
+	private volatile boolean ready;
+	
+	public IsbnBloomFilter(@Value("${library.isbn-filter.expected-insertions:1000000}") long expectedInsertions,
+			@Value("${library.isbn-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+		long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+		this.bitCount = Math.max(64, (optimalBits + 63) / 64 * 64);
+		this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+		this.bits = new AtomicLongArray((int) (bitCount / 64));
+	}
+	
+	public boolean mightContain(String isbn) {
+		if(!ready || isbn == null) {
+			return true;
+		}
+		long hash = hash(isbn);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for(int i = 1; i <= hashCount; i++) {
+			long index = bitIndex(h1 + i * h2);
+			if((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	public void put(String isbn) {
+		if(isbn == null) {
+			return;
+		}
+		long hash = hash(isbn);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for(int i = 1; i <= hashCount; i++) {
+			long index = bitIndex(h1 + i * h2);
+			long mask = 1L << index;
+			bits.getAndAccumulate((int) (index >>> 6), mask, (current, bit) -> current | bit);
+		}
+	}
+	
+	public void markReady() {
+		this.ready = true;
+	}
+	
+	public boolean isReady() {
+		return ready;
+	}
+	
+	private long bitIndex(int combinedHash) {
+		return (combinedHash & Integer.MAX_VALUE) % bitCount;
+	}
+	
+	private static long hash(String value) {
+		long hash = 0xcbf29ce484222325L;
+		for(int i = 0; i < value.length(); i++) {
+			hash ^= value.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+}
@@ -0,0 +1,167 @@
+package org.cursos.libraryapi.resource.cache;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.catalina.connector.CoyoteOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * The JSON body of GET /api/books/{id} for the most read books, kept in
+ * direct buffers outside the heap and bounded by their total size. A hit
+ * skips the dto lookup and Jackson, and on Tomcat the bytes are copied
+ * straight into the connector's buffer. Caffeine's frequency based
+ * admission keeps one-off reads from pushing the hot books out.
+ * <p>
+ * A read that misses captures the book's generation before loading it and
+ * only caches the body if no eviction bumped the generation meanwhile, so a
+ * slow read cannot put back a body older than the last write. Entries also
+ * expire after a while in case a write ever bypasses the eviction.
+ */
+@Component
+@ConditionalOnProperty(name = "library.response-cache.enabled", havingValue = "true")
+public class SerializedBookCache {
+	
+	private static final int COPY_CHUNK_SIZE = 8192;
+	
+	private static final int GENERATION_STRIPES = 1024;
+	
+	private final Cache<Long, Entry> bodies;
+	
+	private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+	
+	private final long maxBytes;
+	
+	public SerializedBookCache(@Value("${library.response-cache.max-bytes:67108864}") long maxBytes,
+			@Value("${library.response-cache.ttl-seconds:600}") long ttlSeconds,
+			MeterRegistry meterRegistry) {
+		this.maxBytes = maxBytes;
+		this.bodies = Caffeine.newBuilder()
+				.maximumWeight(maxBytes)
+				.weigher((Long id, Entry entry) -> entry.body.capacity())
+				.expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+				.executor(Runnable::run)
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, bodies, "book-json");
+		Gauge.builder("library.books.response-cache.bytes", this, SerializedBookCache::size)
+				.description("Bytes of cached response bodies")
+				.baseUnit("bytes")
+				.register(meterRegistry);
+	}
+	
+	public Entry get(Long id) {
+		return bodies.getIfPresent(id);
+	}
+	
+	/**
+	 * The generation to pass to {@link #put}, read before the book is loaded.
+	 */
+	public long generation(Long id) {
+		return generations.get(stripe(id));
+	}
+	
+	/**
+	 * Copies the body off-heap and caches it, unless the book was evicted
+	 * since {@code generation} was read. The entry is returned even when it
+	 * is not kept; bodies too large to be kept stay on the heap.
+	 */
+	public Entry put(Long id, long generation, Long version, byte[] json) {
+		String etag = version == null ? null : "\"" + version + "\"";
+		if(json.length > maxBytes) {
+			return new Entry(ByteBuffer.wrap(json).asReadOnlyBuffer(), etag);
+		}
+		ByteBuffer body = ByteBuffer.allocateDirect(json.length);
+		body.put(json).flip();
+		Entry entry = new Entry(body.asReadOnlyBuffer(), etag);
+		bodies.asMap().compute(id, (key, current) -> generation(key) == generation ? entry : current);
+		return entry;
+	}
+	
+	/**
+	 * Evicts once the current transaction completes. Evicting earlier would
+	 * let a read between the eviction and the commit cache the old body
+	 * again, and waiting for completion rather than commit runs after the
+	 * "books" dto cache has been evicted by its own after-commit callback.
+	 */
+	public void evictAfterCommit(Long id) {
+		if(!TransactionSynchronizationManager.isSynchronizationActive()) {
+			evict(id);
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status) {
+				evict(id);
+			}
+		});
+	}
+	
+	/**
+	 * Bumps the generation under the entry's lock, so a concurrent
+	 * {@link #put} either lands before and is removed, or sees the new
+	 * generation and is dropped.
+	 */
+	private void evict(Long id) {
+		bodies.asMap().compute(id, (key, current) -> {
+			generations.incrementAndGet(stripe(key));
+			return null;
+		});
+	}
+	
+	private static int stripe(Long id) {
+		return Math.floorMod(Long.hashCode(id), GENERATION_STRIPES);
+	}
+	
+	public long size() {
+		return bodies.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L);
+	}
+	
+	public static final class Entry {
+		
+		private final ByteBuffer body;
+		
+		private final String etag;
+		
+		Entry(ByteBuffer body, String etag) {
+			this.body = body;
+			this.etag = etag;
+		}
+		
+		public String getETag() {
+			return etag;
+		}
+		
+		public int getLength() {
+			return body.capacity();
+		}
+		
+		public void writeTo(OutputStream out) throws IOException {
+			ByteBuffer source = body.duplicate();
+			if(out instanceof CoyoteOutputStream) {
+				((CoyoteOutputStream) out).write(source);
+				return;
+			}
+			byte[] chunk = new byte[Math.min(COPY_CHUNK_SIZE, source.remaining())];
+			while(source.hasRemaining()) {
+				int length = Math.min(chunk.length, source.remaining());
+				source.get(chunk, 0, length);
+				out.write(chunk, 0, length);
+			}
+		}
+	}
+}
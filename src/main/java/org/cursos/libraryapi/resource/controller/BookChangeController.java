@@ -0,0 +1,99 @@
+package org.cursos.libraryapi.resource.controller;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.cursos.libraryapi.resource.model.dto.BookChangeDTO;
+import org.cursos.libraryapi.resource.model.dto.BookChangesDTO;
+import org.cursos.libraryapi.resource.outbox.ChangeRelay;
+import org.cursos.libraryapi.resource.services.BookService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Incremental sync for downstream tiers. A consumer first asks for the
+ * current position (no since), rescans the catalog once, and from then on
+ * polls with since set to the last next it got, waiting up to wait seconds
+ * for new changes instead of polling in a loop.
+ */
+@RestController
+@RequestMapping("/api/books/changes")
+@ConditionalOnWebApplication(type = Type.SERVLET)
+public class BookChangeController {
+	
+	static final int MAX_CHANGES = 1000;
+	
+	static final int MAX_WAIT_SECONDS = 30;
+	
+	@Autowired
+	private BookService service;
+	
+	@Autowired(required = false)
+	private ChangeRelay relay;
+	
+	@Autowired
+	private TaskExecutor taskExecutor;
+	
+	/**
+	 * Answers 410 when changes after since were already purged, in which
+	 * case the consumer has to rescan.
+	 */
+	@GetMapping
+	public DeferredResult<BookChangesDTO> changes(@RequestParam(required = false) Long since,
+			@RequestParam(defaultValue = "100") int limit,
+			@RequestParam(defaultValue = "0") int wait) {
+		if(since == null) {
+			DeferredResult<BookChangesDTO> result = new DeferredResult<>();
+			result.setResult(changes(List.of(), service.getLastChangeSeq()));
+			return result;
+		}
+		if(since < service.getFirstChangeSeq() - 1) {
+			throw new ResponseStatusException(HttpStatus.GONE, "Changes after " + since + " are no longer retained.");
+		}
+		int max = Math.max(1, Math.min(limit, MAX_CHANGES));
+		long timeoutMillis = Math.max(0, Math.min(wait, MAX_WAIT_SECONDS)) * 1000L;
+		
+		DeferredResult<BookChangesDTO> result = new DeferredResult<>(timeoutMillis > 0 ? timeoutMillis : null,
+				() -> changes(List.of(), since));
+		if(relay != null && timeoutMillis > 0) {
+			// subscribed before the query, so a batch published in between is not missed
+			Runnable unsubscribe = relay.subscribe(batch -> {
+				List<BookChangeDTO> after = batch.stream()
+						.filter(change -> change.getSeq() > since)
+						.limit(max)
+						.collect(Collectors.toList());
+				if(after.isEmpty()) {
+					return;
+				}
+				if(after.get(0).getSeq() != since + 1) {
+					// part of the range came from another instance's relay; query it off the relay thread
+					taskExecutor.execute(() -> result.setResult(changes(service.getChanges(since, max), since)));
+					return;
+				}
+				result.setResult(changes(after, since));
+			});
+			result.onCompletion(unsubscribe);
+		}
+		List<BookChangeDTO> changes = service.getChanges(since, max);
+		if(!changes.isEmpty() || relay == null || timeoutMillis == 0) {
+			result.setResult(changes(changes, since));
+		}
+		return result;
+	}
+	
+	private static BookChangesDTO changes(List<BookChangeDTO> changes, long next) {
+		if(!changes.isEmpty()) {
+			next = changes.get(changes.size() - 1).getSeq();
+		}
+		return BookChangesDTO.builder().content(changes).next(next).build();
+	}
+}
@@ -1,16 +1,55 @@
 package org.cursos.libraryapi.resource.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.ConstraintViolation;
 import javax.validation.Valid;
+import javax.validation.Validator;
 
+import org.cursos.libraryapi.resource.cache.IdempotencyStore;
+import org.cursos.libraryapi.resource.cache.SerializedBookCache;
 import org.cursos.libraryapi.resource.exception.ApiErrors;
 import org.cursos.libraryapi.resource.exception.BusinessException;
+import org.cursos.libraryapi.resource.exception.ErrorCode;
+import org.cursos.libraryapi.resource.model.dto.BookCursorDTO;
 import org.cursos.libraryapi.resource.model.dto.BookDTO;
+import org.cursos.libraryapi.resource.model.dto.BookImportResultDTO;
+import org.cursos.libraryapi.resource.model.dto.BookLookupResultDTO;
 import org.cursos.libraryapi.resource.model.entity.Book;
+import org.cursos.libraryapi.resource.model.mapper.BookMapper;
 import org.cursos.libraryapi.resource.services.BookService;
-import org.modelmapper.ModelMapper;
+import org.cursos.libraryapi.resource.writebehind.BookUpdateQueue;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -20,34 +59,195 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+
 @RestController
 @RequestMapping("/api/books")
+@ConditionalOnWebApplication(type = Type.SERVLET)
 public class BookController {
 	
+	static final int IMPORT_CHUNK_SIZE = 500;
+	
+	static final int IMPORT_ATTEMPTS = 3;
+	
+	static final int MAX_LOOKUP_SIZE = 1000;
+	
+	static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+	
+	static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+	
+	private static final Counter VALIDATION_ERRORS = Metrics.counter("library.books.errors", "type", "validation");
+	
+	private static final Counter BUSINESS_ERRORS = Metrics.counter("library.books.errors", "type", "business");
+	
 	@Autowired
 	private BookService service;
 	
-	private ModelMapper modelMapper;
+	@Autowired
+	private ObjectMapper objectMapper;
+	
+	@Autowired
+	private Validator validator;
+	
+	@Autowired
+	private CacheManager cacheManager;
+	
+	@Autowired
+	private IdempotencyStore idempotencyStore;
+	
+	@Autowired(required = false)
+	private BookUpdateQueue updateQueue;
 	
-	public BookController(ModelMapper modelMapper) {
-		this.modelMapper = modelMapper;
+	@Autowired(required = false)
+	private SerializedBookCache responseCache;
+	
+	@Value("${library.write-behind.ack:FLUSHED}")
+	private BookUpdateQueue.Ack writeAck = BookUpdateQueue.Ack.FLUSHED;
+	
+	@Value("${library.write-behind.ack-timeout-ms:5000}")
+	private long writeAckTimeoutMillis = 5000;
+	
+	private BookMapper bookMapper;
+	
+	public BookController(BookMapper bookMapper) {
+		this.bookMapper = bookMapper;
 	}
 	
+	/**
+	 * Retries carrying the same Idempotency-Key get the original 201 body
+	 * back, marked with Idempotent-Replayed, without reaching the database.
+	 */
 	@PostMapping
-	@ResponseStatus(HttpStatus.CREATED)
-	public BookDTO create(@RequestBody @Valid BookDTO dto) {
-		Book book = modelMapper.map(dto, Book.class);
+	public ResponseEntity<BookDTO> create(@RequestBody @Valid BookDTO dto,
+			@RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+		if(idempotencyKey == null) {
+			return ResponseEntity.status(HttpStatus.CREATED).body(save(dto));
+		}
+		String fingerprint = dto.getTitle() + '\0' + dto.getAuthor() + '\0' + dto.getIsbn();
+		IdempotencyStore.Outcome<BookDTO> outcome = idempotencyStore.execute(idempotencyKey, fingerprint, () -> save(dto));
+		if(outcome.isConflict()) {
+			throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency-Key already used for another request.");
+		}
+		ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.CREATED);
+		if(outcome.isReplayed()) {
+			response.header(IDEMPOTENT_REPLAYED, "true");
+		}
+		return response.body(outcome.getValue());
+	}
+	
+	private BookDTO save(BookDTO dto) {
+		Book book = bookMapper.toEntity(dto);
 		book = service.save(book);
-		return modelMapper.map(book, BookDTO.class);
+		return bookMapper.toDto(book);
+	}
+	
+	@PostMapping(value = "bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+	public List<BookImportResultDTO> importBooks(InputStream body) throws IOException {
+		List<BookImportResultDTO> results = new ArrayList<>();
+		List<BookDTO> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+		
+		try (MappingIterator<BookDTO> iterator = objectMapper.readerFor(BookDTO.class).readValues(body)) {
+			while(iterator.hasNextValue()) {
+				chunk.add(iterator.nextValue());
+				if(chunk.size() == IMPORT_CHUNK_SIZE) {
+					importChunk(chunk, results);
+					chunk.clear();
+				}
+			}
+		} catch (JsonProcessingException | RuntimeJsonMappingException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+					"Malformed book at index " + (results.size() + chunk.size()) + ".", e);
+		}
+		importChunk(chunk, results);
+		
+		return results;
+	}
+	
+	private void importChunk(List<BookDTO> chunk, List<BookImportResultDTO> results) {
+		int offset = results.size();
+		List<BookImportResultDTO> chunkResults = new ArrayList<>(chunk.size());
+		List<BookDTO> valid = new ArrayList<>(chunk.size());
+		List<BookImportResultDTO> pending = new ArrayList<>(chunk.size());
+		
+		for(int i = 0; i < chunk.size(); i++) {
+			BookDTO dto = chunk.get(i);
+			BookImportResultDTO result = BookImportResultDTO.builder().index(offset + i).isbn(dto.getIsbn()).build();
+			Set<ConstraintViolation<BookDTO>> violations = validator.validate(dto);
+			if(violations.isEmpty()) {
+				valid.add(dto);
+				pending.add(result);
+			} else {
+				List<String> errors = new ArrayList<>();
+				violations.forEach(violation -> errors.add(violation.getMessage()));
+				result.setStatus(HttpStatus.BAD_REQUEST.value());
+				result.setErrors(errors);
+			}
+			chunkResults.add(result);
+		}
+		
+		if(!valid.isEmpty()) {
+			List<Book> saved = saveChunk(valid);
+			for(int i = 0; i < pending.size(); i++) {
+				BookImportResultDTO result = pending.get(i);
+				if(saved == null) {
+					result.setStatus(HttpStatus.CONFLICT.value());
+					result.setErrors(ErrorCode.CONCURRENT_WRITE.getErrors());
+				} else if(saved.get(i) == null) {
+					result.setStatus(HttpStatus.BAD_REQUEST.value());
+					result.setErrors(ErrorCode.DUPLICATE_ISBN.getErrors());
+				} else {
+					result.setStatus(HttpStatus.CREATED.value());
+					result.setId(saved.get(i).getId());
+				}
+			}
+		}
+		results.addAll(chunkResults);
+	}
+	
+	/**
+	 * A chunk rolls back whole when a concurrent writer inserts one of its
+	 * isbns, and the chunks before it are already committed, so it is
+	 * retried: the next attempt finds those isbns taken and saves the rest.
+	 * Fresh entities are mapped per attempt, as the failed one assigned ids.
+	 *
+	 * @return the saved books, aligned with dtos, or null if every attempt lost a race
+	 */
+	private List<Book> saveChunk(List<BookDTO> dtos) {
+		for(int attempt = 1; attempt <= IMPORT_ATTEMPTS; attempt++) {
+			List<Book> books = new ArrayList<>(dtos.size());
+			dtos.forEach(dto -> books.add(bookMapper.toEntity(dto)));
+			try {
+				return service.saveAll(books);
+			} catch (BusinessException e) {
+				if(e.getCode() != ErrorCode.DUPLICATE_ISBN) {
+					throw e;
+				}
+			}
+		}
+		return null;
 	}
 	
 	@ExceptionHandler(MethodArgumentNotValidException.class)
 	@ResponseStatus(HttpStatus.BAD_REQUEST)
 	public ApiErrors handleValidationExceptions(MethodArgumentNotValidException exception) {
+		VALIDATION_ERRORS.increment();
 		BindingResult bindingResult = exception.getBindingResult();
 		
 		return new ApiErrors(bindingResult);
@@ -56,14 +256,225 @@ public class BookController {
 	@ExceptionHandler(BusinessException.class)
 	@ResponseStatus(HttpStatus.BAD_REQUEST)
 	public ApiErrors handleBusinessExceptions(BusinessException businessException) {
-		return new ApiErrors(businessException);
+		BUSINESS_ERRORS.increment();
+		return ApiErrors.of(businessException);
 	}
 	
 	@GetMapping("{id}")
-	public BookDTO get(@PathVariable Long id) {
-		return service.getById(id)
-				.map( book -> modelMapper.map(book, BookDTO.class))
-				.orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+	public ResponseEntity<BookDTO> get(@PathVariable Long id, WebRequest request, HttpServletResponse response,
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) throws IOException {
+		if(responseCache != null && prefersJson(accept)) {
+			SerializedBookCache.Entry body = responseCache.get(id);
+			if(body == null) {
+				long generation = responseCache.generation(id);
+				BookDTO dto = findCached(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+				body = responseCache.put(id, generation, dto.getVersion(), objectMapper.writeValueAsBytes(dto));
+			}
+			writeSerialized(body, request, response);
+			return null;
+		}
+		BookDTO dto = findCached(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+		String etag = etag(dto.getVersion());
+		if(etag != null && request.checkNotModified(etag)) {
+			return null;
+		}
+		return withETag(dto);
+	}
+	
+	/**
+	 * JSON is the first converter, so it is what the client gets unless it
+	 * ranks a binary format above it.
+	 */
+	private static boolean prefersJson(String accept) {
+		if(accept == null || accept.isBlank()) {
+			return true;
+		}
+		try {
+			List<MediaType> types = MediaType.parseMediaTypes(accept);
+			MediaType.sortBySpecificityAndQuality(types);
+			return !types.isEmpty() && types.get(0).isCompatibleWith(MediaType.APPLICATION_JSON);
+		} catch (InvalidMediaTypeException e) {
+			return false;
+		}
+	}
+	
+	private static void writeSerialized(SerializedBookCache.Entry body, WebRequest request, HttpServletResponse response)
+			throws IOException {
+		if(body.getETag() != null) {
+			if(request.checkNotModified(body.getETag())) {
+				return;
+			}
+			response.setHeader(HttpHeaders.ETAG, body.getETag());
+		}
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		response.setContentLength(body.getLength());
+		body.writeTo(response.getOutputStream());
+	}
+	
+	/**
+	 * Read-through lookup in the "books" cache, which BookServiceImpl evicts
+	 * once an update or delete commits. The book is loaded inside the cache's
+	 * per-key computation, so an eviction waits for a load that started
+	 * before the commit and removes the old dto it returned; a load that
+	 * starts after the eviction sees the committed row. Missing books are not
+	 * cached.
+	 */
+	private Optional<BookDTO> findCached(Long id) {
+		Cache cache = cacheManager.getCache("books");
+		if(cache == null) {
+			return service.getDtoById(id);
+		}
+		try {
+			return Optional.of(cache.get(id, () -> service.getDtoById(id).orElseThrow(BookNotFound::new)));
+		} catch (Cache.ValueRetrievalException e) {
+			if(e.getCause() instanceof BookNotFound) {
+				return Optional.empty();
+			}
+			throw e;
+		}
+	}
+	
+	private static class BookNotFound extends RuntimeException {
+		
+		BookNotFound() {
+			super(null, null, false, false);
+		}
+	}
+	
+	private static String etag(Long version) {
+		return version == null ? null : "\"" + version + "\"";
+	}
+	
+	private static ResponseEntity<BookDTO> withETag(BookDTO dto) {
+		ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+		if(dto.getVersion() != null) {
+			response.eTag(etag(dto.getVersion()));
+		}
+		return response.body(dto);
+	}
+	
+	private static boolean matches(String ifMatch, String etag) {
+		for(String candidate : ifMatch.split(",")) {
+			candidate = candidate.trim();
+			if("*".equals(candidate) || candidate.equals(etag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	@GetMapping
+	public Page<BookDTO> find(BookDTO dto, Pageable pageRequest) {
+		Book filter = bookMapper.toEntity(dto);
+		Page<Book> result = service.find(filter, pageRequest);
+		List<BookDTO> list = result.getContent()
+				.stream()
+				.map(bookMapper::toDto)
+				.collect(Collectors.toList());
+		
+		return new PageImpl<BookDTO>(list, pageRequest, result.getTotalElements());
+	}
+	
+	@GetMapping("batch")
+	public List<BookLookupResultDTO> getAll(@RequestParam(required = false) List<Long> ids,
+			@RequestParam(required = false) List<String> isbns) {
+		if((ids == null) == (isbns == null)) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Inform either ids or isbns.");
+		}
+		List<?> keys = ids != null ? ids : isbns;
+		if(keys.size() > MAX_LOOKUP_SIZE) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_LOOKUP_SIZE + " books per lookup.");
+		}
+		List<BookDTO> books = ids != null ? service.getByIds(ids) : service.getByIsbns(isbns);
+		
+		List<BookLookupResultDTO> results = new ArrayList<>(keys.size());
+		for(int i = 0; i < keys.size(); i++) {
+			BookDTO book = books.get(i);
+			results.add(BookLookupResultDTO.builder()
+					.key(String.valueOf(keys.get(i)))
+					.status(book == null ? HttpStatus.NOT_FOUND.value() : HttpStatus.OK.value())
+					.book(book)
+					.build());
+		}
+		return results;
+	}
+	
+	@GetMapping(params = "after")
+	public BookCursorDTO scroll(@RequestParam String after, Pageable pageRequest) {
+		boolean byTitle = BookCursor.byTitle(pageRequest.getSort());
+		Slice<BookDTO> result = service.scroll(BookCursor.decode(after, byTitle), pageRequest);
+		List<BookDTO> list = result.getContent();
+		String next = result.hasNext() ? BookCursor.encode(list.get(list.size() - 1), byTitle) : null;
+		
+		return BookCursorDTO.builder().content(list).next(next).build();
+	}
+	
+	@GetMapping("search")
+	public Page<BookDTO> search(@RequestParam String q, Pageable pageRequest) {
+		if(q.isBlank()) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Empty search.");
+		}
+		Page<Book> result = service.search(q, pageRequest);
+		return new PageImpl<BookDTO>(bookMapper.toDtos(result.getContent()), pageRequest, result.getTotalElements());
+	}
+	
+	@GetMapping("export")
+	public void export(@RequestParam(defaultValue = "ndjson") String format, HttpServletResponse response) throws IOException {
+		if("ndjson".equals(format)) {
+			response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+			exportNdjson(response.getOutputStream());
+		} else if("csv".equals(format)) {
+			response.setContentType("text/csv");
+			response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+			exportCsv(response.getOutputStream());
+		} else {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format.");
+		}
+	}
+	
+	private void exportNdjson(OutputStream out) throws IOException {
+		ObjectWriter writer = objectMapper.writerFor(BookDTO.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+			generator.setRootValueSeparator(new SerializedString("\n"));
+			service.export(book -> {
+				try {
+					writer.writeValue(generator, bookMapper.toDto(book));
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			generator.writeRaw('\n');
+		}
+	}
+	
+	private void exportCsv(OutputStream out) throws IOException {
+		try (Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+			writer.write("id,title,author,isbn\n");
+			service.export(book -> {
+				try {
+					writer.write(String.valueOf(book.getId()));
+					writer.write(',');
+					writer.write(csv(book.getTitle()));
+					writer.write(',');
+					writer.write(csv(book.getAuthor()));
+					writer.write(',');
+					writer.write(csv(book.getIsbn()));
+					writer.write('\n');
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		}
+	}
+	
+	private static String csv(String value) {
+		if(value == null) {
+			return "";
+		}
+		if(value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+			return value;
+		}
+		return '"' + value.replace("\"", "\"\"") + '"';
 	}
 	
 	@DeleteMapping("{id}")
@@ -74,13 +485,49 @@ public class BookController {
 	}
 	
 	@PutMapping("{id}")
-	public BookDTO update(@PathVariable Long id, @RequestBody BookDTO bookDto) {
+	public ResponseEntity<BookDTO> update(@PathVariable Long id, @RequestBody @Validated(BookDTO.Update.class) BookDTO bookDto,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+			@RequestHeader(value = "Prefer", required = false) String prefer) {
 		return service.getById(id).map(book -> {
+				if(ifMatch != null && !matches(ifMatch, etag(book.getVersion()))) {
+					throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED);
+				}
 				book.setAuthor(bookDto.getAuthor());
 				book.setTitle(bookDto.getTitle());
-				book = service.update(book);
+				if(updateQueue != null && ifMatch == null) {
+					return writeBehind(book, prefer);
+				}
+				try {
+					book = service.update(book);
+				} catch (OptimisticLockingFailureException e) {
+					throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED);
+				}
 		
-				return modelMapper.map(book, BookDTO.class);
+				BookDTO dto = bookMapper.toDto(book);
+				return withETag(dto);
 		}).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
 	}
+	
+	/**
+	 * Queues the update instead of writing it. The response is 200 once the
+	 * batch holding it committed, or 202 when the client sent
+	 * "Prefer: respond-async", the configured ack is "accepted", or the flush
+	 * took longer than the ack timeout. Conditional updates never get here,
+	 * since the version they check is only known after the flush.
+	 */
+	private ResponseEntity<BookDTO> writeBehind(Book book, String prefer) {
+		BookUpdateQueue.Ack ack = prefer != null && prefer.contains("respond-async") ? BookUpdateQueue.Ack.ACCEPTED : writeAck;
+		boolean written;
+		try {
+			written = updateQueue.submit(book, ack, writeAckTimeoutMillis);
+		} catch (RejectedExecutionException e) {
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+		} catch (OptimisticLockingFailureException e) {
+			throw new ResponseStatusException(HttpStatus.CONFLICT);
+		}
+		
+		BookDTO dto = bookMapper.toDto(book);
+		dto.setVersion(null);
+		return ResponseEntity.status(written ? HttpStatus.OK : HttpStatus.ACCEPTED).body(dto);
+	}
 }
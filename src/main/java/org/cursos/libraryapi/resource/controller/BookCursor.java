@@ -0,0 +1,67 @@
+package org.cursos.libraryapi.resource.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.cursos.libraryapi.resource.model.dto.BookDTO;
+import org.cursos.libraryapi.resource.model.entity.Book;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Opaque "after" token for keyset listings. It carries the id of the last
+ * book of a page and, for title ordered listings, its title.
+ */
+final class BookCursor {
+	
+	private static final char SEPARATOR = ':';
+	
+	private BookCursor() {
+	}
+	
+	/**
+	 * Cursors only walk forwards by id, or by title then id, so any other
+	 * sort is refused rather than silently served in another order.
+	 */
+	static boolean byTitle(Sort sort) {
+		boolean byTitle = false;
+		for(Sort.Order order : sort) {
+			if(order.isDescending() || !("title".equals(order.getProperty()) || "id".equals(order.getProperty()))) {
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursors only sort ascending by title or id.");
+			}
+			byTitle |= "title".equals(order.getProperty());
+		}
+		return byTitle;
+	}
+	
+	static String encode(BookDTO last, boolean byTitle) {
+		if(byTitle && last.getTitle() == null) {
+			throw new IllegalArgumentException("Book " + last.getId() + " has no title to resume from.");
+		}
+		String raw = byTitle ? last.getId() + String.valueOf(SEPARATOR) + last.getTitle() : String.valueOf(last.getId());
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	static Book decode(String token, boolean byTitle) {
+		if(token == null || token.isEmpty()) {
+			return null;
+		}
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			int separator = raw.indexOf(SEPARATOR);
+			if(byTitle && separator < 0) {
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor.");
+			}
+			if(separator < 0) {
+				return Book.builder().id(Long.valueOf(raw)).build();
+			}
+			return Book.builder()
+					.id(Long.valueOf(raw.substring(0, separator)))
+					.title(raw.substring(separator + 1))
+					.build();
+		} catch (IllegalArgumentException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor.");
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package org.cursos.libraryapi.resource.controller;
+
+import java.util.List;
+
+import javax.validation.Valid;
+
+import org.cursos.libraryapi.resource.exception.ApiErrors;
+import org.cursos.libraryapi.resource.exception.BusinessException;
+import org.cursos.libraryapi.resource.model.dto.BookCursorDTO;
+import org.cursos.libraryapi.resource.model.dto.BookDTO;
+import org.cursos.libraryapi.resource.model.entity.Book;
+import org.cursos.libraryapi.resource.model.mapper.BookMapper;
+import org.cursos.libraryapi.resource.services.ReactiveBookService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ResponseStatusException;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking variant of {@link BookController}, served instead of it when
+ * the application runs with spring.main.web-application-type=reactive.
+ */
+@RestController
+@RequestMapping("/api/books")
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+public class ReactiveBookController {
+	
+	/** Spring Data's default cap on the page size of the servlet endpoints. */
+	static final int MAX_PAGE_SIZE = 2000;
+	
+	@Autowired
+	private ReactiveBookService service;
+	
+	private BookMapper bookMapper;
+	
+	public ReactiveBookController(BookMapper bookMapper) {
+		this.bookMapper = bookMapper;
+	}
+	
+	@PostMapping
+	@ResponseStatus(HttpStatus.CREATED)
+	public Mono<BookDTO> create(@RequestBody @Valid BookDTO dto) {
+		return service.save(bookMapper.toEntity(dto)).map(bookMapper::toDto);
+	}
+	
+	@ExceptionHandler(WebExchangeBindException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public ApiErrors handleValidationExceptions(WebExchangeBindException exception) {
+		return new ApiErrors(exception.getBindingResult());
+	}
+	
+	@ExceptionHandler(BusinessException.class)
+	@ResponseStatus(HttpStatus.BAD_REQUEST)
+	public ApiErrors handleBusinessExceptions(BusinessException businessException) {
+		return ApiErrors.of(businessException);
+	}
+	
+	@GetMapping("{id}")
+	public Mono<BookDTO> get(@PathVariable Long id) {
+		return service.getById(id)
+				.map(bookMapper::toDto)
+				.switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)));
+	}
+	
+	@GetMapping(params = "after")
+	public Mono<BookCursorDTO> scroll(@RequestParam String after, @RequestParam(defaultValue = "20") int size) {
+		if(size < 1 || size > MAX_PAGE_SIZE) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Size must be between 1 and " + MAX_PAGE_SIZE + ".");
+		}
+		Book cursor = BookCursor.decode(after, false);
+		return service.scroll(cursor == null ? null : cursor.getId(), size + 1)
+				.collectList()
+				.map(books -> {
+					boolean hasNext = books.size() > size;
+					List<BookDTO> content = bookMapper.toDtos(hasNext ? books.subList(0, size) : books);
+					return BookCursorDTO.builder()
+							.content(content)
+							.next(hasNext ? BookCursor.encode(content.get(size - 1), false) : null)
+							.build();
+				});
+	}
+	
+	@GetMapping(value = "export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public Flux<BookDTO> export() {
+		return service.export().map(bookMapper::toDto);
+	}
+	
+	@DeleteMapping("{id}")
+	@ResponseStatus(HttpStatus.NO_CONTENT)
+	public Mono<Void> delete(@PathVariable Long id) {
+		return service.getById(id)
+				.switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)))
+				.flatMap(service::delete);
+	}
+	
+	@PutMapping("{id}")
+	public Mono<BookDTO> update(@PathVariable Long id, @RequestBody @Validated(BookDTO.Update.class) BookDTO bookDto) {
+		return service.getById(id)
+				.switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)))
+				.flatMap(book -> {
+					book.setAuthor(bookDto.getAuthor());
+					book.setTitle(bookDto.getTitle());
+					return service.update(book);
+				})
+				.onErrorMap(OptimisticLockingFailureException.class, e -> new ResponseStatusException(HttpStatus.PRECONDITION_FAILED))
+				.map(bookMapper::toDto);
+	}
+}
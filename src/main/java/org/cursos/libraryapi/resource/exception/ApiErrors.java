@@ -1,21 +1,54 @@
 package org.cursos.libraryapi.resource.exception;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import org.springframework.validation.BindingResult;
+import org.springframework.validation.ObjectError;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class ApiErrors {
-	List<String> errors;
+	
+	public static final String INVALID_REQUEST = "INVALID_REQUEST";
+	
+	private final String code;
+	
+	private final List<String> errors;
+	
+	ApiErrors(String code, List<String> errors) {
+		this.code = code;
+		this.errors = errors;
+	}
 	
 	public ApiErrors(BindingResult bindingResult) {
-		this.errors = new ArrayList<>();
-		bindingResult.getAllErrors().forEach(error -> this.errors.add(error.getDefaultMessage()));
+		List<ObjectError> all = bindingResult.getAllErrors();
+		List<String> errors = new ArrayList<>(all.size());
+		for(ObjectError error : all) {
+			errors.add(error.getDefaultMessage());
+		}
+		this.code = INVALID_REQUEST;
+		this.errors = Collections.unmodifiableList(errors);
 	}
 	
 	public ApiErrors(BusinessException businessException) {
-		this.errors = Arrays.asList(businessException.getMessage());
+		this.code = null;
+		this.errors = Collections.singletonList(businessException.getMessage());
+	}
+	
+	/**
+	 * The shared body of the exception's code, or a new one for a
+	 * BusinessException without code.
+	 */
+	public static ApiErrors of(BusinessException businessException) {
+		ErrorCode code = businessException.getCode();
+		return code == null ? new ApiErrors(businessException) : code.getBody();
+	}
+	
+	public String getCode() {
+		return code;
 	}
 	
 	public List<String> getErrors() {
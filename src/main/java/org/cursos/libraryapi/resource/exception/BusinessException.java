@@ -1,7 +1,25 @@
 package org.cursos.libraryapi.resource.exception;
 
+/**
+ * An expected rejection, turned into a 400 by the controllers. It carries
+ * no stack trace: it is thrown for every duplicate isbn of an import, and
+ * where it came from is never in question.
+ */
 public class BusinessException extends RuntimeException{
+	
+	private final ErrorCode code;
+	
+	public BusinessException(ErrorCode code) {
+		super(code.getMessage(), null, false, false);
+		this.code = code;
+	}
+	
 	public BusinessException(String s) {
-		super(s);
+		super(s, null, false, false);
+		this.code = null;
+	}
+	
+	public ErrorCode getCode() {
+		return code;
 	}
 }
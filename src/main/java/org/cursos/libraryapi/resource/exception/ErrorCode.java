@@ -0,0 +1,38 @@
+package org.cursos.libraryapi.resource.exception;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Business rejections clients are expected to handle, each with its fixed
+ * message. The error body is built once per code and shared by every
+ * response.
+ */
+public enum ErrorCode {
+	DUPLICATE_ISBN("Isbn already exists."),
+	CONCURRENT_WRITE("Books were written concurrently, retry the book.");
+	
+	private final String message;
+	
+	private final List<String> errors;
+	
+	private final ApiErrors body;
+	
+	ErrorCode(String message) {
+		this.message = message;
+		this.errors = Collections.singletonList(message);
+		this.body = new ApiErrors(name(), errors);
+	}
+	
+	public String getMessage() {
+		return message;
+	}
+	
+	public List<String> getErrors() {
+		return errors;
+	}
+	
+	public ApiErrors getBody() {
+		return body;
+	}
+}
@@ -0,0 +1,88 @@
+package org.cursos.libraryapi.resource.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that follows the observed latency, after the gradient
+ * limiters of TCP Vegas. A long-term average of the response time stands for
+ * the latency without queueing; while recent responses are slower than that,
+ * the limit shrinks in proportion, and while they are not it grows by a small
+ * queue allowance. Only samples taken with the limit at least half used move
+ * it, so an idle service does not inflate it.
+ */
+public class AdaptiveConcurrencyLimit {
+	
+	private static final double TOLERANCE = 1.5;
+	
+	private static final double SMOOTHING = 0.2;
+	
+	private static final double LONG_WINDOW = 600;
+	
+	private final int minLimit;
+	
+	private final int maxLimit;
+	
+	private final AtomicInteger inflight = new AtomicInteger();
+	
+	private volatile int limit;
+	
+	private double estimatedLimit;
+	
+	private double longRtt;
+	
+	public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.limit = initialLimit;
+		this.estimatedLimit = initialLimit;
+	}
+	
+	public boolean tryAcquire() {
+		while(true) {
+			int current = inflight.get();
+			if(current >= limit) {
+				return false;
+			}
+			if(inflight.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+	
+	/**
+	 * Releases the slot taken by {@link #tryAcquire()} and feeds the time the
+	 * request held it into the limit.
+	 */
+	public void release(long rttNanos) {
+		int current = inflight.getAndDecrement();
+		onSample(rttNanos, current);
+	}
+	
+	private synchronized void onSample(long rttNanos, int inflightAtSample) {
+		if(rttNanos <= 0) {
+			return;
+		}
+		if(longRtt == 0) {
+			longRtt = rttNanos;
+		} else {
+			longRtt += (rttNanos - longRtt) / LONG_WINDOW;
+		}
+		if(inflightAtSample < estimatedLimit / 2) {
+			return;
+		}
+		
+		double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / rttNanos));
+		double queueSize = Math.sqrt(estimatedLimit);
+		double newLimit = estimatedLimit * gradient + queueSize;
+		estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING));
+		limit = (int) estimatedLimit;
+	}
+	
+	public int getLimit() {
+		return limit;
+	}
+	
+	public int getInflight() {
+		return inflight.get();
+	}
+}
@@ -0,0 +1,52 @@
+package org.cursos.libraryapi.resource.limit;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Bulkhead for the request executor: at most a fixed number of requests run
+ * at once, the rest wait briefly for a permit and are shed with a 503.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+	
+	private final Semaphore permits;
+	
+	private final long timeoutMillis;
+	
+	public ConcurrencyLimitFilter(int maxConcurrentRequests, long timeoutMillis) {
+		this.permits = new Semaphore(maxConcurrentRequests);
+		this.timeoutMillis = timeoutMillis;
+	}
+	
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		boolean acquired;
+		try {
+			acquired = permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			acquired = false;
+		}
+		if(!acquired) {
+			response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+			response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+			return;
+		}
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			permits.release();
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package org.cursos.libraryapi.resource.limit;
+
+import org.cursos.libraryapi.resource.limit.LoadSheddingFilter.Budget;
+import org.cursos.libraryapi.resource.limit.LoadSheddingFilter.BudgetLimits;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Puts the {@link LoadSheddingFilter} in front of the books API.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@ConditionalOnProperty(name = "library.limits.enabled", havingValue = "true")
+public class LoadSheddingConfig {
+	
+	@Bean
+	public FilterRegistrationBean<LoadSheddingFilter> loadSheddingFilter(MeterRegistry meterRegistry,
+			@Value("${library.limits.read.permits-per-second:200}") double readRate,
+			@Value("${library.limits.read.burst:400}") int readBurst,
+			@Value("${library.limits.read.max-concurrency:200}") int readConcurrency,
+			@Value("${library.limits.heavy-read.permits-per-second:50}") double heavyReadRate,
+			@Value("${library.limits.heavy-read.burst:100}") int heavyReadBurst,
+			@Value("${library.limits.heavy-read.max-concurrency:20}") int heavyReadConcurrency,
+			@Value("${library.limits.write.permits-per-second:20}") double writeRate,
+			@Value("${library.limits.write.burst:40}") int writeBurst,
+			@Value("${library.limits.write.max-concurrency:40}") int writeConcurrency,
+			@Value("${library.limits.max-clients:100000}") long maxClients) {
+		BudgetLimits read = new BudgetLimits(Budget.READ, readRate, readBurst,
+				new AdaptiveConcurrencyLimit(readConcurrency / 2, 4, readConcurrency), meterRegistry);
+		BudgetLimits heavyRead = new BudgetLimits(Budget.HEAVY_READ, heavyReadRate, heavyReadBurst,
+				new AdaptiveConcurrencyLimit(heavyReadConcurrency / 2, 2, heavyReadConcurrency), meterRegistry);
+		BudgetLimits write = new BudgetLimits(Budget.WRITE, writeRate, writeBurst,
+				new AdaptiveConcurrencyLimit(writeConcurrency / 2, 2, writeConcurrency), meterRegistry);
+		
+		FilterRegistrationBean<LoadSheddingFilter> registration =
+				new FilterRegistrationBean<>(new LoadSheddingFilter(read, heavyRead, write, maxClients));
+		registration.addUrlPatterns("/api/*");
+		return registration;
+	}
+}
@@ -0,0 +1,139 @@
+package org.cursos.libraryapi.resource.limit;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Rejects requests early instead of letting them queue on the connection
+ * pool. Every request is charged to one of three budgets: plain reads are
+ * cheap; searches, exports and batch lookups are reads that hold a
+ * connection for much longer; writes are the rest. Keeping the expensive
+ * reads apart keeps their round trips out of the samples the other limits
+ * adapt to. Per budget, each client has a token bucket (429 when empty) and
+ * all clients share an adaptive concurrency limit (503 when reached).
+ */
+public class LoadSheddingFilter extends OncePerRequestFilter {
+	
+	public enum Budget { READ, HEAVY_READ, WRITE }
+	
+	public static final String CLIENT_ID = "X-Client-Id";
+	
+	private final Cache<String, TokenBucket> buckets;
+	
+	private final BudgetLimits read;
+	
+	private final BudgetLimits heavyRead;
+	
+	private final BudgetLimits write;
+	
+	public LoadSheddingFilter(BudgetLimits read, BudgetLimits heavyRead, BudgetLimits write, long maxClients) {
+		this.read = read;
+		this.heavyRead = heavyRead;
+		this.write = write;
+		this.buckets = Caffeine.newBuilder()
+				.maximumSize(maxClients)
+				.expireAfterAccess(10, TimeUnit.MINUTES)
+				.build();
+	}
+	
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		Budget budget = budgetOf(request);
+		BudgetLimits limits = limitsOf(budget);
+		
+		String client = request.getHeader(CLIENT_ID);
+		String key = budget + ":" + (client == null ? request.getRemoteAddr() : client);
+		long waitNanos = buckets.get(key, ignored -> limits.newBucket()).tryAcquire();
+		if(waitNanos > 0) {
+			limits.rateLimited.increment();
+			reject(response, HttpStatus.TOO_MANY_REQUESTS, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999)));
+			return;
+		}
+		
+		if(!limits.concurrency.tryAcquire()) {
+			limits.shed.increment();
+			reject(response, HttpStatus.SERVICE_UNAVAILABLE, 1);
+			return;
+		}
+		long start = System.nanoTime();
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			limits.concurrency.release(System.nanoTime() - start);
+		}
+	}
+	
+	static Budget budgetOf(HttpServletRequest request) {
+		if(!HttpMethod.GET.matches(request.getMethod())) {
+			return Budget.WRITE;
+		}
+		String uri = request.getRequestURI();
+		return uri.endsWith("/search") || uri.endsWith("/export") || uri.endsWith("/batch") ? Budget.HEAVY_READ : Budget.READ;
+	}
+	
+	private BudgetLimits limitsOf(Budget budget) {
+		if(budget == Budget.READ) {
+			return read;
+		}
+		return budget == Budget.HEAVY_READ ? heavyRead : write;
+	}
+	
+	private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds) {
+		response.setStatus(status.value());
+		response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+	}
+	
+	/**
+	 * The limits of one budget: the rate and burst of each client bucket and
+	 * the shared concurrency limit.
+	 */
+	public static class BudgetLimits {
+		
+		private final double permitsPerSecond;
+		
+		private final int burst;
+		
+		private final AdaptiveConcurrencyLimit concurrency;
+		
+		private final Counter rateLimited;
+		
+		private final Counter shed;
+		
+		public BudgetLimits(Budget budget, double permitsPerSecond, int burst, AdaptiveConcurrencyLimit concurrency,
+				MeterRegistry meterRegistry) {
+			this.permitsPerSecond = permitsPerSecond;
+			this.burst = burst;
+			this.concurrency = concurrency;
+			this.rateLimited = meterRegistry.counter("library.limits.rejected", "budget", budget.name().toLowerCase(), "reason", "rate");
+			this.shed = meterRegistry.counter("library.limits.rejected", "budget", budget.name().toLowerCase(), "reason", "concurrency");
+			meterRegistry.gauge("library.limits.concurrency", Tags.of("budget", budget.name().toLowerCase()),
+					concurrency, AdaptiveConcurrencyLimit::getLimit);
+		}
+		
+		TokenBucket newBucket() {
+			return new TokenBucket(permitsPerSecond, burst);
+		}
+		
+		AdaptiveConcurrencyLimit getConcurrency() {
+			return concurrency;
+		}
+	}
+}
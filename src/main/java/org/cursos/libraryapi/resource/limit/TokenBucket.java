@@ -0,0 +1,45 @@
+package org.cursos.libraryapi.resource.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket, kept as the time at which the bucket will be full
+ * again (the generic cell rate algorithm): taking a token pushes that time
+ * one emission interval further, and the request is refused when it would
+ * move more than the burst ahead of now.
+ */
+public class TokenBucket {
+	
+	private final long intervalNanos;
+	
+	private final long burstNanos;
+	
+	private final AtomicLong fullAt = new AtomicLong(Long.MIN_VALUE);
+	
+	public TokenBucket(double permitsPerSecond, int burst) {
+		this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+		this.burstNanos = intervalNanos * Math.max(1, burst);
+	}
+	
+	/**
+	 * @return 0 if a token was taken, otherwise the nanoseconds to wait for one
+	 */
+	public long tryAcquire() {
+		return tryAcquire(System.nanoTime());
+	}
+	
+	long tryAcquire(long now) {
+		while(true) {
+			long current = fullAt.get();
+			long next = Math.max(current, now) + intervalNanos;
+			long ahead = next - now;
+			if(ahead > burstNanos) {
+				return ahead - burstNanos;
+			}
+			if(fullAt.compareAndSet(current, next)) {
+				return 0;
+			}
+		}
+	}
+}
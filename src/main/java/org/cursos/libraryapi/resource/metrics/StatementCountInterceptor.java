@@ -0,0 +1,41 @@
+package org.cursos.libraryapi.resource.metrics;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Records how many SQL statements each request issued, tagged like the
+ * http.server.requests timer.
+ */
+public class StatementCountInterceptor implements HandlerInterceptor {
+	
+	private MeterRegistry meterRegistry;
+	
+	public StatementCountInterceptor(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+	
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		StatementCounter.reset();
+		return true;
+	}
+	
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+		Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		DistributionSummary.builder("library.hibernate.statements")
+				.description("SQL statements issued per request")
+				.tag("method", request.getMethod())
+				.tag("uri", uri == null ? "UNKNOWN" : uri.toString())
+				.publishPercentiles(0.5, 0.95, 0.99)
+				.register(meterRegistry)
+				.record(StatementCounter.get());
+	}
+}
@@ -0,0 +1,34 @@
+package org.cursos.libraryapi.resource.model.dto;
+
+import java.time.Instant;
+
+import org.cursos.libraryapi.resource.model.entity.BookChange;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookChangeDTO {
+	private Long seq;
+	
+	private BookChange.Type type;
+	
+	private Long bookId;
+	
+	private String title;
+	
+	private String author;
+	
+	private String isbn;
+	
+	private Long version;
+	
+	private Instant createdAt;
+}
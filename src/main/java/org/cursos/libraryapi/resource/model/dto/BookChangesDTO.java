@@ -0,0 +1,20 @@
+package org.cursos.libraryapi.resource.model.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookChangesDTO {
+	private List<BookChangeDTO> content;
+	
+	private long next;
+}
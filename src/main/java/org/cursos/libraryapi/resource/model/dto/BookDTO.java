@@ -1,6 +1,7 @@
 package org.cursos.libraryapi.resource.model.dto;
 
 import javax.validation.constraints.NotEmpty;
+import javax.validation.groups.Default;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -14,14 +15,23 @@ import lombok.Setter;
 @NoArgsConstructor
 @AllArgsConstructor
 public class BookDTO {
+	
+	/**
+	 * Validation group of PUT bodies, which carry no isbn.
+	 */
+	public interface Update {
+	}
+	
 	private Long id;
 	
-	@NotEmpty
+	@NotEmpty(groups = { Default.class, Update.class })
 	private String title;
 	
-	@NotEmpty
+	@NotEmpty(groups = { Default.class, Update.class })
 	private String author;
 	
 	@NotEmpty
 	private String isbn;
+	
+	private Long version;
 }
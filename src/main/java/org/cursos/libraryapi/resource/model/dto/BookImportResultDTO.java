@@ -0,0 +1,26 @@
+package org.cursos.libraryapi.resource.model.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportResultDTO {
+	private int index;
+	
+	private int status;
+	
+	private Long id;
+	
+	private String isbn;
+	
+	private List<String> errors;
+}
@@ -0,0 +1,20 @@
+package org.cursos.libraryapi.resource.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookLookupResultDTO {
+	private String key;
+	
+	private int status;
+	
+	private BookDTO book;
+}
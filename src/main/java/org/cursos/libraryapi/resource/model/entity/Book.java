@@ -5,7 +5,13 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.Version;
+
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.FullTextField;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.Indexed;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -17,19 +23,31 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table
+@Indexed
+@Table(indexes = {
+		@Index(name = "idx_book_title_id", columnList = "title, id"),
+		@Index(name = "idx_book_author", columnList = "author"),
+		@Index(name = "idx_book_isbn", columnList = "isbn", unique = true)
+})
 public class Book {
 	@Id
 	@Column
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+	@SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
 	private Long id;
 	
 	@Column
+	@FullTextField
 	private String title;
 	
 	@Column
+	@FullTextField
 	private String author;
 	
 	@Column
 	private String isbn;
+	
+	@Version
+	@Column
+	private Long version;
 }
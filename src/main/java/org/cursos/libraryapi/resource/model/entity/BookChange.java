@@ -0,0 +1,84 @@
+package org.cursos.libraryapi.resource.model.entity;
+
+import java.time.Instant;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outbox row written in the same transaction as the book mutation it
+ * describes. The relay later gives it its place in the change stream
+ * (seq); rows without one are not published yet.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "book_change", indexes = {
+		@Index(name = "idx_book_change_seq", columnList = "seq", unique = true)
+})
+public class BookChange {
+	
+	public enum Type {
+		CREATED,
+		UPDATED,
+		DELETED
+	}
+	
+	@Id
+	@Column
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_change_id_seq")
+	@SequenceGenerator(name = "book_change_id_seq", sequenceName = "book_change_id_seq", allocationSize = 50)
+	private Long id;
+	
+	@Column
+	private Long seq;
+	
+	@Column(nullable = false)
+	@Enumerated(EnumType.STRING)
+	private Type type;
+	
+	@Column(nullable = false)
+	private Long bookId;
+	
+	@Column
+	private String title;
+	
+	@Column
+	private String author;
+	
+	@Column
+	private String isbn;
+	
+	@Column
+	private Long version;
+	
+	@Column(nullable = false)
+	private Instant createdAt;
+	
+	public static BookChange of(Type type, Book book) {
+		return BookChange.builder()
+				.type(type)
+				.bookId(book.getId())
+				.title(book.getTitle())
+				.author(book.getAuthor())
+				.isbn(book.getIsbn())
+				.version(book.getVersion())
+				.createdAt(Instant.now())
+				.build();
+	}
+}
@@ -0,0 +1,42 @@
+package org.cursos.libraryapi.resource.model.mapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cursos.libraryapi.resource.model.dto.BookDTO;
+import org.cursos.libraryapi.resource.model.entity.Book;
+
+/**
+ * Plain field copies between {@link Book} and {@link BookDTO}, allocating
+ * nothing but the target object. The version is managed by the persistence
+ * layer, so it is never copied from a dto.
+ */
+public class BookMapper {
+	
+	public Book toEntity(BookDTO dto) {
+		Book book = new Book();
+		book.setId(dto.getId());
+		book.setTitle(dto.getTitle());
+		book.setAuthor(dto.getAuthor());
+		book.setIsbn(dto.getIsbn());
+		return book;
+	}
+	
+	public BookDTO toDto(Book book) {
+		BookDTO dto = new BookDTO();
+		dto.setId(book.getId());
+		dto.setTitle(book.getTitle());
+		dto.setAuthor(book.getAuthor());
+		dto.setIsbn(book.getIsbn());
+		dto.setVersion(book.getVersion());
+		return dto;
+	}
+	
+	public List<BookDTO> toDtos(List<Book> books) {
+		List<BookDTO> dtos = new ArrayList<>(books.size());
+		for(Book book : books) {
+			dtos.add(toDto(book));
+		}
+		return dtos;
+	}
+}
@@ -0,0 +1,184 @@
+package org.cursos.libraryapi.resource.outbox;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.cursos.libraryapi.resource.model.dto.BookChangeDTO;
+import org.cursos.libraryapi.resource.model.entity.BookChange;
+import org.cursos.libraryapi.resource.repository.BookChangeRepository;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Publishes the outbox: every poll interval the unpublished changes are
+ * numbered, batchSize at a time and in the order they were written, and
+ * handed to the subscribers once the numbering is committed. Positions are
+ * only given out here, on a single thread and under row locks, so a
+ * consumer that has read up to some position never finds a smaller one
+ * appearing later.
+ *
+ * Runs as a lifecycle bean, so it stops, with a last publish, before the
+ * context closes the datasource.
+ */
+public class ChangeRelay implements SmartLifecycle, AutoCloseable {
+	
+	private static final long PURGE_INTERVAL_MINUTES = 60;
+	
+	private final BookChangeRepository repository;
+	
+	private final TransactionTemplate transactions;
+	
+	private final int batchSize;
+	
+	private final Duration retention;
+	
+	private final long pollIntervalMillis;
+	
+	private ScheduledExecutorService relay;
+	
+	private final List<Consumer<List<BookChangeDTO>>> subscribers = new CopyOnWriteArrayList<>();
+	
+	private final Counter published;
+	
+	private final Counter failures;
+	
+	private final Timer publishLatency;
+	
+	public ChangeRelay(BookChangeRepository repository, TransactionTemplate transactions, int batchSize,
+			long pollIntervalMillis, Duration retention, MeterRegistry meterRegistry) {
+		this.repository = repository;
+		this.transactions = transactions;
+		this.batchSize = batchSize;
+		this.retention = retention;
+		this.pollIntervalMillis = pollIntervalMillis;
+		
+		this.published = Counter.builder("library.books.outbox.published")
+				.description("Changes published to the stream")
+				.register(meterRegistry);
+		this.failures = Counter.builder("library.books.outbox.failures")
+				.description("Relay runs that failed and will be retried")
+				.register(meterRegistry);
+		this.publishLatency = Timer.builder("library.books.outbox.publish")
+				.description("Time to number one batch of changes")
+				.register(meterRegistry);
+	}
+	
+	/**
+	 * Calls the subscriber with every batch published from now on, on the
+	 * relay thread, so it must not block.
+	 *
+	 * @return unsubscribes it
+	 */
+	public Runnable subscribe(Consumer<List<BookChangeDTO>> subscriber) {
+		subscribers.add(subscriber);
+		return () -> subscribers.remove(subscriber);
+	}
+	
+	/**
+	 * Publishes batches until the outbox is empty. A failed batch is rolled
+	 * back and retried on the next run.
+	 */
+	void publish() {
+		List<BookChangeDTO> batch;
+		do {
+			try {
+				batch = publishLatency.record(() -> transactions.execute(status -> publishBatch()));
+			} catch (RuntimeException e) {
+				failures.increment();
+				return;
+			}
+			if(!batch.isEmpty()) {
+				published.increment(batch.size());
+				for(Consumer<List<BookChangeDTO>> subscriber : subscribers) {
+					subscriber.accept(batch);
+				}
+			}
+		} while(batch.size() == batchSize);
+	}
+	
+	private List<BookChangeDTO> publishBatch() {
+		List<BookChange> changes = repository.findUnpublished(PageRequest.of(0, batchSize));
+		if(changes.isEmpty()) {
+			return Collections.emptyList();
+		}
+		long seq = repository.findLastSeq();
+		List<BookChangeDTO> batch = new ArrayList<>(changes.size());
+		for(BookChange change : changes) {
+			change.setSeq(++seq);
+			batch.add(BookChangeDTO.builder()
+					.seq(change.getSeq())
+					.type(change.getType())
+					.bookId(change.getBookId())
+					.title(change.getTitle())
+					.author(change.getAuthor())
+					.isbn(change.getIsbn())
+					.version(change.getVersion())
+					.createdAt(change.getCreatedAt())
+					.build());
+		}
+		return batch;
+	}
+	
+	void purge() {
+		try {
+			transactions.executeWithoutResult(status -> repository.deletePublishedBefore(Instant.now().minus(retention)));
+		} catch (RuntimeException e) {
+			failures.increment();
+		}
+	}
+	
+	@Override
+	public synchronized void start() {
+		if(relay != null) {
+			return;
+		}
+		relay = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "book-change-relay");
+			thread.setDaemon(true);
+			return thread;
+		});
+		relay.scheduleWithFixedDelay(this::publish, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+		relay.scheduleWithFixedDelay(this::purge, PURGE_INTERVAL_MINUTES, PURGE_INTERVAL_MINUTES, TimeUnit.MINUTES);
+	}
+	
+	/**
+	 * Stops the timer and publishes whatever is still in the outbox.
+	 */
+	@Override
+	public synchronized void stop() {
+		if(relay == null) {
+			return;
+		}
+		relay.shutdown();
+		try {
+			relay.awaitTermination(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		relay = null;
+		publish();
+	}
+	
+	@Override
+	public synchronized boolean isRunning() {
+		return relay != null;
+	}
+	
+	@Override
+	public void close() {
+		stop();
+	}
+}
@@ -0,0 +1,32 @@
+package org.cursos.libraryapi.resource.outbox;
+
+import java.time.Duration;
+
+import org.cursos.libraryapi.resource.repository.BookChangeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Publishes the changes BookServiceImpl writes to the outbox, feeding
+ * GET /api/books/changes. Turn it off on instances that should only write.
+ */
+@Configuration
+@ConditionalOnProperty(name = "library.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxConfig {
+	
+	@Bean(destroyMethod = "close")
+	public ChangeRelay changeRelay(BookChangeRepository repository, PlatformTransactionManager transactionManager,
+			MeterRegistry meterRegistry,
+			@Value("${library.outbox.batch-size:500}") int batchSize,
+			@Value("${library.outbox.poll-interval-ms:100}") long pollIntervalMillis,
+			@Value("${library.outbox.retention-hours:168}") long retentionHours) {
+		return new ChangeRelay(repository, new TransactionTemplate(transactionManager), batchSize, pollIntervalMillis,
+				Duration.ofHours(retentionHours), meterRegistry);
+	}
+}
@@ -0,0 +1,31 @@
+package org.cursos.libraryapi.resource.reactive;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+
+/**
+ * R2DBC client for the reactive stack, connecting to the same database and
+ * with the same credentials as the JDBC DataSource. The connection factory is
+ * kept out of the context on purpose: Spring Boot backs off the DataSource as
+ * soon as a ConnectionFactory bean exists, and the JPA stack still needs it.
+ */
+@Configuration
+public class R2dbcConfig {
+	
+	@Bean
+	public DatabaseClient databaseClient(@Value("${library.r2dbc.url}") String url,
+			@Value("${spring.datasource.username:sa}") String username,
+			@Value("${spring.datasource.password:}") String password) {
+		ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url)
+				.mutate()
+				.option(ConnectionFactoryOptions.USER, username)
+				.option(ConnectionFactoryOptions.PASSWORD, password)
+				.build();
+		return DatabaseClient.create(ConnectionFactories.get(options));
+	}
+}
@@ -0,0 +1,57 @@
+package org.cursos.libraryapi.resource.replica;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.cursos.libraryapi.resource.limit.LoadSheddingFilter;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Remembers which clients wrote in the last window and pins their requests
+ * to the primary meanwhile, so a client never reads a replica that has not
+ * replayed its own write yet. Clients are told apart as the load shedding
+ * filter does, by X-Client-Id or else by address. The window should cover
+ * the replication lag; it is kept per instance.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+	
+	private final Cache<String, Boolean> recentWriters;
+	
+	public ReadYourWritesFilter(Duration window, long maxClients) {
+		this.recentWriters = Caffeine.newBuilder()
+				.maximumSize(maxClients)
+				.expireAfterWrite(window)
+				.build();
+	}
+	
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		String client = request.getHeader(LoadSheddingFilter.CLIENT_ID);
+		if(client == null) {
+			client = request.getRemoteAddr();
+		}
+		boolean write = isWrite(request.getMethod());
+		ReplicaRoutingDataSource.pinToPrimary(write || recentWriters.getIfPresent(client) != null);
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			ReplicaRoutingDataSource.pinToPrimary(false);
+			if(write && response.getStatus() < 400) {
+				recentWriters.put(client, Boolean.TRUE);
+			}
+		}
+	}
+	
+	private static boolean isWrite(String method) {
+		return !("GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method));
+	}
+}
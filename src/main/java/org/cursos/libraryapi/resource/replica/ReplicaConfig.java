@@ -0,0 +1,102 @@
+package org.cursos.libraryapi.resource.replica;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Replaces the single datasource with the primary plus a pool per replica
+ * url, routed by {@link ReplicaRoutingDataSource}. The primary is the usual
+ * spring.datasource one; replicas share its credentials and Hikari settings
+ * unless library.replicas.username/password are set, and only their own
+ * pool size. Locally the replicas can be more H2 databases, or the primary's
+ * own in-memory database reached through separate pools.
+ */
+@Configuration
+@ConditionalOnProperty(name = "library.replicas.enabled", havingValue = "true")
+public class ReplicaConfig implements DisposableBean {
+	
+	private ReplicaRoutingDataSource routing;
+	
+	@Bean
+	public DataSource dataSource(DataSourceProperties properties, Environment environment, ObjectProvider<MeterRegistry> meterRegistry,
+			@Value("${library.replicas.urls}") List<String> urls,
+			@Value("${library.replicas.username:${spring.datasource.username:sa}}") String username,
+			@Value("${library.replicas.password:${spring.datasource.password:}}") String password,
+			@Value("${library.replicas.pool-size:10}") int poolSize) {
+		HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		configure(primary, ReplicaRoutingDataSource.PRIMARY, environment, meterRegistry);
+		
+		List<DataSource> replicas = new ArrayList<>(urls.size());
+		for(int i = 0; i < urls.size(); i++) {
+			HikariDataSource replica = new HikariDataSource();
+			configure(replica, "replica-" + i, environment, meterRegistry);
+			replica.setJdbcUrl(urls.get(i));
+			replica.setUsername(username);
+			replica.setPassword(password);
+			replica.setMaximumPoolSize(poolSize);
+			replica.setReadOnly(true);
+			replicas.add(replica);
+		}
+		
+		routing = new ReplicaRoutingDataSource(primary, replicas);
+		routing.afterPropertiesSet();
+		// given up front, the proxy has no reason to open a connection while the context starts
+		LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy();
+		proxy.setTargetDataSource(routing);
+		proxy.setDefaultAutoCommit(primary.isAutoCommit());
+		proxy.setDefaultTransactionIsolationName(primary.getTransactionIsolation() != null
+				? primary.getTransactionIsolation() : "TRANSACTION_READ_COMMITTED");
+		return proxy;
+	}
+	
+	private static void configure(HikariDataSource pool, String name, Environment environment, ObjectProvider<MeterRegistry> meterRegistry) {
+		Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+		pool.setPoolName(name);
+		// the registry binds the datasource itself, so it is only looked up once a pool starts
+		pool.setMetricsTrackerFactory((poolName, stats) ->
+				new MicrometerMetricsTrackerFactory(meterRegistry.getObject()).create(poolName, stats));
+	}
+	
+	@Bean
+	@ConditionalOnWebApplication(type = Type.SERVLET)
+	public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(
+			@Value("${library.replicas.read-your-writes-ms:5000}") long windowMillis,
+			@Value("${library.replicas.max-clients:100000}") long maxClients) {
+		FilterRegistrationBean<ReadYourWritesFilter> registration =
+				new FilterRegistrationBean<>(new ReadYourWritesFilter(Duration.ofMillis(windowMillis), maxClients));
+		registration.addUrlPatterns("/api/*");
+		registration.setOrder(Ordered.LOWEST_PRECEDENCE);
+		return registration;
+	}
+	
+	@Override
+	public void destroy() throws Exception {
+		if(routing != null) {
+			routing.close();
+		}
+	}
+}
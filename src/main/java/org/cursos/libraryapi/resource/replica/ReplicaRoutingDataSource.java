@@ -0,0 +1,72 @@
+package org.cursos.libraryapi.resource.replica;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends connections of read-only transactions to the replicas, round robin,
+ * and everything else to the primary. The transaction is only known to be
+ * read-only once it has begun, so this must sit behind a
+ * LazyConnectionDataSourceProxy, which fetches the real connection on the
+ * first statement.
+ *
+ * A thread pinned with {@link #pinToPrimary} reads from the primary too,
+ * which gives a client its own writes back while the replicas catch up.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+	
+	static final String PRIMARY = "primary";
+	
+	private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+	
+	private final String[] replicas;
+	
+	private final AtomicInteger next = new AtomicInteger();
+	
+	public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas) {
+		Map<Object, Object> targets = new HashMap<>();
+		targets.put(PRIMARY, primary);
+		this.replicas = new String[replicas.size()];
+		for(int i = 0; i < replicas.size(); i++) {
+			this.replicas[i] = "replica-" + i;
+			targets.put(this.replicas[i], replicas.get(i));
+		}
+		setTargetDataSources(targets);
+		setDefaultTargetDataSource(primary);
+	}
+	
+	public static void pinToPrimary(boolean pinned) {
+		if(pinned) {
+			PINNED.set(Boolean.TRUE);
+		} else {
+			PINNED.remove();
+		}
+	}
+	
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if(replicas.length == 0 || PINNED.get() != null || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			return PRIMARY;
+		}
+		return replicas[Math.floorMod(next.getAndIncrement(), replicas.length)];
+	}
+	
+	/**
+	 * Closes the primary and replica pools.
+	 */
+	@Override
+	public void close() throws Exception {
+		for(DataSource target : getResolvedDataSources().values()) {
+			if(target instanceof AutoCloseable) {
+				((AutoCloseable) target).close();
+			}
+		}
+	}
+}
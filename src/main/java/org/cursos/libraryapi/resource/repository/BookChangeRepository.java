@@ -0,0 +1,50 @@
+package org.cursos.libraryapi.resource.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import javax.persistence.LockModeType;
+
+import org.cursos.libraryapi.resource.model.dto.BookChangeDTO;
+import org.cursos.libraryapi.resource.model.entity.BookChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface BookChangeRepository extends JpaRepository<BookChange, Long> {
+	
+	/**
+	 * Locks the rows, so relays of several instances publish one after the
+	 * other instead of handing out the same positions.
+	 *
+	 * Ids come from pooled sequence blocks, so with several writers they do
+	 * not follow commit order. The book version does: a change to a book
+	 * commits only after the one to the version before it. A delete keeps
+	 * the version of the last update, hence the tie break on the type.
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select c from BookChange c where c.seq is null order by c.bookId asc, c.version asc, "
+			+ "case when c.type = org.cursos.libraryapi.resource.model.entity.BookChange$Type.DELETED then 1 else 0 end asc, c.id asc")
+	List<BookChange> findUnpublished(Pageable pageable);
+	
+	@Query("select coalesce(max(c.seq), 0) from BookChange c")
+	long findLastSeq();
+	
+	@Query("select min(c.seq) from BookChange c")
+	Long findFirstSeq();
+	
+	@Query("select new org.cursos.libraryapi.resource.model.dto.BookChangeDTO(c.seq, c.type, c.bookId, c.title, c.author, c.isbn, c.version, c.createdAt) "
+			+ "from BookChange c where c.seq > :since order by c.seq asc")
+	List<BookChangeDTO> findDtosAfterSeq(@Param("since") long since, Pageable pageable);
+	
+	/**
+	 * Keeps the last published change whatever its age, so the stream
+	 * positions carry on from it instead of starting over.
+	 */
+	@Modifying
+	@Query("delete from BookChange c where c.seq < (select max(l.seq) from BookChange l) and c.createdAt < :before")
+	int deletePublishedBefore(@Param("before") Instant before);
+}
@@ -1,8 +1,69 @@
 package org.cursos.libraryapi.resource.repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import org.cursos.libraryapi.resource.model.dto.BookDTO;
 import org.cursos.libraryapi.resource.model.entity.Book;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 public interface BookRepository extends JpaRepository<Book, Long> {
 	boolean existsByIsbn(String isbn);
+	
+	@Query("select b.isbn from Book b where b.isbn in :isbns")
+	List<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+	
+	/**
+	 * Read path: rows are copied straight into dtos, so nothing is added to
+	 * the persistence context and there is nothing to dirty check.
+	 */
+	String SELECT_DTO = "select new org.cursos.libraryapi.resource.model.dto.BookDTO(b.id, b.title, b.author, b.isbn, b.version) from Book b ";
+	
+	@Query(SELECT_DTO + "where b.id = :id")
+	Optional<BookDTO> findDtoById(@Param("id") Long id);
+	
+	@Query(SELECT_DTO + "where b.id in :ids")
+	List<BookDTO> findDtosByIdIn(@Param("ids") Collection<Long> ids);
+	
+	@Query(SELECT_DTO + "where b.isbn in :isbns")
+	List<BookDTO> findDtosByIsbnIn(@Param("isbns") Collection<String> isbns);
+	
+	@Query(SELECT_DTO + "where b.id > :id order by b.id asc")
+	Slice<BookDTO> findDtosAfterId(@Param("id") Long id, Pageable pageable);
+	
+	/**
+	 * Books without a title cannot carry a title cursor, so they are left
+	 * out of title ordered listings. The API requires a title on create and
+	 * update; only rows written around it can lack one.
+	 */
+	@Query(SELECT_DTO + "where b.title is not null order by b.title asc, b.id asc")
+	Slice<BookDTO> findDtosOrderByTitle(Pageable pageable);
+	
+	/**
+	 * The leading title >= :title is what lets the database seek on
+	 * (title, id); the equivalent "title > :title or (title = :title and
+	 * id > :id)" alone walks the index from its start.
+	 */
+	@Query(SELECT_DTO + "where b.title >= :title and (b.title > :title or b.id > :id) order by b.title asc, b.id asc")
+	Slice<BookDTO> findDtosAfterTitle(@Param("title") String title, @Param("id") Long id, Pageable pageable);
+	
+	@QueryHints({
+		@QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+		@QueryHint(name = "org.hibernate.readOnly", value = "true")
+	})
+	@Query("select b from Book b order by b.id asc")
+	Stream<Book> streamAll();
+	
+	@QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+	@Query("select b.isbn from Book b")
+	Stream<String> streamIsbns();
 }
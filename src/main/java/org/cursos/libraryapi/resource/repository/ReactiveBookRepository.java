@@ -0,0 +1,65 @@
+package org.cursos.libraryapi.resource.repository;
+
+import org.cursos.libraryapi.resource.model.entity.Book;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import io.r2dbc.spi.Row;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking reads over R2DBC, the counterpart of {@link BookRepository}
+ * for the reactive stack. Writes go through BookService instead, which
+ * keeps the outbox, the search index and the caches in step.
+ */
+@Repository
+public class ReactiveBookRepository {
+	
+	private static final String COLUMNS = "id, title, author, isbn, version";
+	
+	private DatabaseClient client;
+	
+	public ReactiveBookRepository(DatabaseClient client) {
+		this.client = client;
+	}
+	
+	public Mono<Book> findById(Long id) {
+		return client.sql("select " + COLUMNS + " from book where id = :id")
+				.bind("id", id)
+				.map(ReactiveBookRepository::toBook)
+				.one();
+	}
+	
+	public Mono<Boolean> existsByIsbn(String isbn) {
+		return client.sql("select 1 from book where isbn = :isbn limit 1")
+				.bind("isbn", isbn)
+				.map(row -> true)
+				.first()
+				.defaultIfEmpty(false);
+	}
+	
+	public Flux<Book> findByIdGreaterThan(Long id, int limit) {
+		return client.sql("select " + COLUMNS + " from book where id > :id order by id asc limit :limit")
+				.bind("id", id)
+				.bind("limit", limit)
+				.map(ReactiveBookRepository::toBook)
+				.all();
+	}
+	
+	public Flux<Book> findAll() {
+		return client.sql("select " + COLUMNS + " from book order by id asc")
+				.map(ReactiveBookRepository::toBook)
+				.all();
+	}
+	
+	private static Book toBook(Row row) {
+		return Book.builder()
+				.id(row.get("id", Long.class))
+				.title(row.get("title", String.class))
+				.author(row.get("author", String.class))
+				.isbn(row.get("isbn", String.class))
+				.version(row.get("version", Long.class))
+				.build();
+	}
+}
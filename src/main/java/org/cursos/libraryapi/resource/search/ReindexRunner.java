@@ -0,0 +1,47 @@
+package org.cursos.libraryapi.resource.search;
+
+import org.cursos.libraryapi.resource.services.BookService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rebuilds the full-text index from the database at startup, loading books
+ * in parallel. Run with --library.search.reindex=true. An in-memory
+ * database starts empty and reuses ids, so against one the index kept on
+ * disk is always rebuilt, which also purges the documents of the last run.
+ */
+@Component
+public class ReindexRunner implements ApplicationRunner {
+	
+	private static final String IN_MEMORY_URL = "jdbc:h2:mem:";
+	
+	private BookService service;
+	
+	private boolean reindex;
+	
+	private String datasourceUrl;
+	
+	public ReindexRunner(BookService service,
+			@Value("${library.search.reindex:false}") boolean reindex,
+			@Value("${spring.datasource.url:}") String datasourceUrl) {
+		this.service = service;
+		this.reindex = reindex;
+		this.datasourceUrl = datasourceUrl;
+	}
+	
+	@Override
+	public void run(ApplicationArguments args) throws Exception {
+		if(reindex || inMemory()) {
+			service.reindex();
+		}
+	}
+	
+	/**
+	 * Without a url Spring Boot starts an embedded in-memory database.
+	 */
+	private boolean inMemory() {
+		return datasourceUrl.isBlank() || datasourceUrl.startsWith(IN_MEMORY_URL);
+	}
+}
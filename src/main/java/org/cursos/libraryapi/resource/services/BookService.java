@@ -1,19 +1,48 @@
 package org.cursos.libraryapi.resource.services;
 
-import java.awt.print.Pageable;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
+import org.cursos.libraryapi.resource.model.dto.BookChangeDTO;
+import org.cursos.libraryapi.resource.model.dto.BookDTO;
 import org.cursos.libraryapi.resource.model.entity.Book;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 public interface BookService {
 	Book save(Book book);
 	
+	List<Book> saveAll(List<Book> books);
+	
 	Optional<Book> getById(Long id);
+	
+	Optional<BookDTO> getDtoById(Long id);
+	
+	List<BookDTO> getByIds(List<Long> ids);
+	
+	List<BookDTO> getByIsbns(List<String> isbns);
 
 	void delete(Book book);
 
 	Book update(Book book);
+	
+	void updateAll(List<Book> books);
 
 	Page<Book> find(Book filter, Pageable pageRequest);
+	
+	Slice<BookDTO> scroll(Book after, Pageable pageRequest);
+	
+	void export(Consumer<Book> consumer);
+	
+	Page<Book> search(String query, Pageable pageRequest);
+	
+	List<BookChangeDTO> getChanges(long since, int limit);
+	
+	long getLastChangeSeq();
+	
+	long getFirstChangeSeq();
+	
+	void reindex() throws InterruptedException;
 }
@@ -0,0 +1,20 @@
+package org.cursos.libraryapi.resource.services;
+
+import org.cursos.libraryapi.resource.model.entity.Book;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveBookService {
+	Mono<Book> save(Book book);
+	
+	Mono<Book> getById(Long id);
+	
+	Mono<Void> delete(Book book);
+	
+	Mono<Book> update(Book book);
+	
+	Flux<Book> scroll(Long afterId, int size);
+	
+	Flux<Book> export();
+}
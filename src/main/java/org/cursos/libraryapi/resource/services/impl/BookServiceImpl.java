@@ -1,57 +1,368 @@
 package org.cursos.libraryapi.resource.services.impl;
 
-import java.awt.print.Pageable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.cursos.libraryapi.resource.cache.IsbnBloomFilter;
+import org.cursos.libraryapi.resource.cache.SerializedBookCache;
 import org.cursos.libraryapi.resource.exception.BusinessException;
+import org.cursos.libraryapi.resource.exception.ErrorCode;
+import org.cursos.libraryapi.resource.model.dto.BookChangeDTO;
+import org.cursos.libraryapi.resource.model.dto.BookDTO;
 import org.cursos.libraryapi.resource.model.entity.Book;
+import org.cursos.libraryapi.resource.model.entity.BookChange;
+import org.cursos.libraryapi.resource.repository.BookChangeRepository;
 import org.cursos.libraryapi.resource.repository.BookRepository;
 import org.cursos.libraryapi.resource.services.BookService;
+import org.hibernate.search.engine.search.common.BooleanOperator;
+import org.hibernate.search.engine.search.query.SearchResult;
+import org.hibernate.search.mapper.orm.Search;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.micrometer.core.annotation.Timed;
 
 @Service
 public class BookServiceImpl implements BookService{
 	
+	static final int EXPORT_CLEAR_INTERVAL = 500;
+	
+	static final int REINDEX_THREADS = 4;
+	
+	static final int LOOKUP_CHUNK_SIZE = 500;
+	
 	private BookRepository repository;
 	
-	public BookServiceImpl(BookRepository repository) {
+	private BookChangeRepository changeRepository;
+	
+	private IsbnBloomFilter isbnFilter;
+	
+	@PersistenceContext
+	private EntityManager entityManager;
+	
+	@Autowired(required = false)
+	private SerializedBookCache responseCache;
+	
+	public BookServiceImpl(BookRepository repository, BookChangeRepository changeRepository, IsbnBloomFilter isbnFilter) {
 		this.repository = repository;
+		this.changeRepository = changeRepository;
+		this.isbnFilter = isbnFilter;
+	}
+	
+	/**
+	 * Not read-only, so it reads the primary: a lagging replica would leave
+	 * recent ISBNs out of the filter.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Transactional
+	public void warmUpIsbnFilter() {
+		try (Stream<String> isbns = repository.streamIsbns()) {
+			isbns.forEach(isbnFilter::put);
+		}
+		isbnFilter.markReady();
 	}
 	
+	/**
+	 * Every write below also appends its change to the outbox in the same
+	 * transaction, so the change stream holds exactly the committed writes.
+	 */
 	@Override
+	@Timed("library.books.service")
+	@Transactional
 	public Book save(Book book) {
-		if(repository.existsByIsbn(book.getIsbn())) {
-			throw new BusinessException("Isbn already exists.");
+		if(isbnFilter.mightContain(book.getIsbn()) && repository.existsByIsbn(book.getIsbn())) {
+			throw new BusinessException(ErrorCode.DUPLICATE_ISBN);
 		}
-		return repository.save(book);
+		try {
+			book = repository.save(book);
+			// inside the transaction the insert waits for the flush, and so would the constraint violation
+			repository.flush();
+		} catch (DataIntegrityViolationException e) {
+			throw new BusinessException(ErrorCode.DUPLICATE_ISBN);
+		}
+		changeRepository.save(BookChange.of(BookChange.Type.CREATED, book));
+		isbnFilter.put(book.getIsbn());
+		return book;
 	}
 
+	/**
+	 * Saves a chunk of books with a single isbn lookup and a batched insert.
+	 * The returned list is aligned with the given one, holding null for every
+	 * book rejected because its isbn already exists. If another writer
+	 * inserts one of the isbns meanwhile, the whole chunk is rolled back with
+	 * a DUPLICATE_ISBN rejection and can be retried as is.
+	 */
 	@Override
+	@Timed("library.books.service")
+	@Transactional
+	public List<Book> saveAll(List<Book> books) {
+		Set<String> isbns = books.stream()
+				.map(Book::getIsbn)
+				.filter(isbnFilter::mightContain)
+				.collect(Collectors.toSet());
+		Set<String> taken = isbns.isEmpty() ? new HashSet<>() : new HashSet<>(repository.findExistingIsbns(isbns));
+		
+		List<Book> accepted = new ArrayList<>();
+		List<Book> result = new ArrayList<>(books.size());
+		for(Book book : books) {
+			if(taken.add(book.getIsbn())) {
+				accepted.add(book);
+				result.add(book);
+			} else {
+				result.add(null);
+			}
+		}
+		try {
+			repository.saveAll(accepted);
+			repository.flush();
+		} catch (DataIntegrityViolationException e) {
+			// a concurrent writer took one of them, maybe on another instance; putting them all in the
+			// filter costs a few false positives and makes a retry of the chunk check every isbn exactly
+			accepted.forEach(book -> isbnFilter.put(book.getIsbn()));
+			throw new BusinessException(ErrorCode.DUPLICATE_ISBN);
+		}
+		changeRepository.saveAll(changes(BookChange.Type.CREATED, accepted));
+		accepted.forEach(book -> isbnFilter.put(book.getIsbn()));
+		return result;
+	}
+
+	@Override
+	@Timed("library.books.service")
+	@Transactional(readOnly = true)
 	public Optional<Book> getById(Long id) {
 		return repository.findById(id);
 	}
 
+	/**
+	 * Stays on the primary even with replicas: the controller caches what it
+	 * returns, and a lagging replica could put back a version just evicted.
+	 */
+	@Override
+	@Timed("library.books.service")
+	public Optional<BookDTO> getDtoById(Long id) {
+		return repository.findDtoById(id);
+	}
+
+	@Override
+	@Timed("library.books.service")
+	@Transactional(readOnly = true)
+	public List<BookDTO> getByIds(List<Long> ids) {
+		return lookup(ids, repository::findDtosByIdIn, BookDTO::getId);
+	}
+
 	@Override
+	@Timed("library.books.service")
+	@Transactional(readOnly = true)
+	public List<BookDTO> getByIsbns(List<String> isbns) {
+		return lookup(isbns, repository::findDtosByIsbnIn, BookDTO::getIsbn);
+	}
+
+	/**
+	 * Resolves the keys with one IN query per chunk and returns the books in
+	 * the order of the keys, holding null for every key not found.
+	 */
+	private <K> List<BookDTO> lookup(List<K> keys, Function<List<K>, List<BookDTO>> query, Function<BookDTO, K> keyOf) {
+		Map<K, BookDTO> found = new HashMap<>();
+		List<K> distinct = keys.stream().distinct().collect(Collectors.toList());
+		for(int from = 0; from < distinct.size(); from += LOOKUP_CHUNK_SIZE) {
+			List<K> chunk = distinct.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, distinct.size()));
+			query.apply(chunk).forEach(book -> found.put(keyOf.apply(book), book));
+		}
+		
+		List<BookDTO> result = new ArrayList<>(keys.size());
+		keys.forEach(key -> result.add(found.get(key)));
+		return result;
+	}
+
+	@Override
+	@Timed("library.books.service")
+	@Transactional
+	@CacheEvict(cacheNames = "books", key = "#book.id")
 	public void delete(Book book) {
 		if(book == null || book.getId() == null) {
 			throw new IllegalArgumentException("Book id cant be null");
 		}
 		repository.delete(book);
+		changeRepository.save(BookChange.of(BookChange.Type.DELETED, book));
+		evictResponse(book.getId());
 	}
 
 	@Override
+	@Timed("library.books.service")
+	@Transactional
+	@CacheEvict(cacheNames = "books", key = "#book.id")
 	public Book update(Book book) {
 		if(book == null || book.getId() == null) {
 			throw new IllegalArgumentException("Book id cant be null");
 		}
-		return repository.save(book);
+		book = repository.save(book);
+		// the version is only incremented on flush, and the change carries the new one
+		repository.flush();
+		changeRepository.save(BookChange.of(BookChange.Type.UPDATED, book));
+		evictResponse(book.getId());
+		return book;
+	}
+
+	/**
+	 * Applies the title and author of each book to its stored row in one
+	 * transaction: a single IN query loads the rows and the dirty ones are
+	 * flushed as JDBC batches on commit. Books deleted meanwhile are skipped.
+	 */
+	@Override
+	@Timed("library.books.service")
+	@Transactional
+	public void updateAll(List<Book> books) {
+		Map<Long, Book> changes = new HashMap<>();
+		books.forEach(book -> changes.put(book.getId(), book));
+		List<Book> stored = repository.findAllById(changes.keySet());
+		for(Book book : stored) {
+			Book change = changes.get(book.getId());
+			book.setTitle(change.getTitle());
+			book.setAuthor(change.getAuthor());
+		}
+		repository.flush();
+		changeRepository.saveAll(changes(BookChange.Type.UPDATED, stored));
+		stored.forEach(book -> evictResponse(book.getId()));
+	}
+	
+	private void evictResponse(Long id) {
+		if(responseCache != null) {
+			responseCache.evictAfterCommit(id);
+		}
+	}
+	
+	private static List<BookChange> changes(BookChange.Type type, List<Book> books) {
+		return books.stream().map(book -> BookChange.of(type, book)).collect(Collectors.toList());
 	}
 
+	/**
+	 * Example queries can only select entities, so the page is loaded in a
+	 * read-only transaction: Hibernate keeps no snapshots for the books and
+	 * skips the flush.
+	 */
 	@Override
+	@Timed("library.books.service")
+	@Transactional(readOnly = true)
 	public Page<Book> find(Book filter, Pageable pageRequest) {
-		// TODO Auto-generated method stub
-		return null;
+		Example<Book> example = Example.of(filter, ExampleMatcher
+				.matching()
+				.withIgnoreNullValues()
+				.withMatcher("title", match -> match.startsWith())
+				.withMatcher("author", match -> match.startsWith())
+				.withMatcher("isbn", match -> match.exact()));
+		
+		return repository.findAll(example, pageRequest);
+	}
+
+	@Override
+	@Timed("library.books.service")
+	@Transactional(readOnly = true)
+	public Slice<BookDTO> scroll(Book after, Pageable pageRequest) {
+		Pageable limit = PageRequest.of(0, pageRequest.getPageSize());
+		
+		if(pageRequest.getSort().getOrderFor("title") != null) {
+			if(after == null) {
+				return repository.findDtosOrderByTitle(limit);
+			}
+			return repository.findDtosAfterTitle(after.getTitle(), after.getId(), limit);
+		}
+		
+		return repository.findDtosAfterId(after == null ? 0L : after.getId(), limit);
+	}
+
+	/**
+	 * Walks the whole catalog through a forward-only cursor, detaching the
+	 * books already handed to the consumer so memory stays constant.
+	 */
+	@Override
+	@Timed("library.books.service")
+	@Transactional(readOnly = true)
+	public void export(Consumer<Book> consumer) {
+		try (Stream<Book> books = repository.streamAll()) {
+			Iterator<Book> iterator = books.iterator();
+			int read = 0;
+			while(iterator.hasNext()) {
+				consumer.accept(iterator.next());
+				if(++read % EXPORT_CLEAR_INTERVAL == 0) {
+					entityManager.clear();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Ranked full-text search over title and author. Whole words score higher
+	 * than partial ones, which are matched as prefixes.
+	 */
+	@Override
+	@Timed("library.books.service")
+	@Transactional(readOnly = true)
+	public Page<Book> search(String query, Pageable pageRequest) {
+		String prefixes = Arrays.stream(query.trim().split("\\s+"))
+				.map(term -> term + "*")
+				.collect(Collectors.joining(" "));
+		
+		SearchResult<Book> result = Search.session(entityManager)
+				.search(Book.class)
+				.where(f -> f.bool()
+						.should(f.match().fields("title", "author").matching(query).boost(2f))
+						.should(f.simpleQueryString().fields("title", "author").matching(prefixes)
+								.defaultOperator(BooleanOperator.AND)))
+				.fetch((int) pageRequest.getOffset(), pageRequest.getPageSize());
+		
+		return new PageImpl<Book>(result.hits(), pageRequest, result.total().hitCount());
+	}
+
+	@Override
+	@Timed("library.books.service")
+	public List<BookChangeDTO> getChanges(long since, int limit) {
+		return changeRepository.findDtosAfterSeq(since, PageRequest.of(0, limit));
+	}
+
+	@Override
+	public long getLastChangeSeq() {
+		return changeRepository.findLastSeq();
+	}
+
+	@Override
+	public long getFirstChangeSeq() {
+		Long first = changeRepository.findFirstSeq();
+		return first == null ? 0 : first;
+	}
+
+	@Override
+	public void reindex() throws InterruptedException {
+		Search.mapping(entityManager.getEntityManagerFactory())
+				.scope(Book.class)
+				.massIndexer()
+				.threadsToLoadObjects(REINDEX_THREADS)
+				.startAndWait();
 	}
 
 }
@@ -0,0 +1,75 @@
+package org.cursos.libraryapi.resource.services.impl;
+
+import java.util.concurrent.Callable;
+
+import org.cursos.libraryapi.resource.model.entity.Book;
+import org.cursos.libraryapi.resource.repository.ReactiveBookRepository;
+import org.cursos.libraryapi.resource.services.BookService;
+import org.cursos.libraryapi.resource.services.ReactiveBookService;
+import org.springframework.stereotype.Service;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Reads go through R2DBC. Writes are handed to {@link BookService} on the
+ * bounded elastic scheduler, so they get everything a servlet write gets:
+ * the isbn check, the optimistic version check, the outbox row, the search
+ * index update and the cache evictions.
+ */
+@Service
+public class ReactiveBookServiceImpl implements ReactiveBookService {
+	
+	private ReactiveBookRepository repository;
+	
+	private BookService bookService;
+	
+	public ReactiveBookServiceImpl(ReactiveBookRepository repository, BookService bookService) {
+		this.repository = repository;
+		this.bookService = bookService;
+	}
+	
+	@Override
+	public Mono<Book> save(Book book) {
+		return blocking(() -> bookService.save(book));
+	}
+	
+	@Override
+	public Mono<Book> getById(Long id) {
+		return repository.findById(id);
+	}
+	
+	@Override
+	public Mono<Void> delete(Book book) {
+		if(book == null || book.getId() == null) {
+			return Mono.error(new IllegalArgumentException("Book id cant be null"));
+		}
+		return blocking(() -> {
+			bookService.delete(book);
+			return book;
+		}).then();
+	}
+	
+	@Override
+	public Mono<Book> update(Book book) {
+		if(book == null || book.getId() == null) {
+			return Mono.error(new IllegalArgumentException("Book id cant be null"));
+		}
+		return blocking(() -> bookService.update(book));
+	}
+	
+	@Override
+	public Flux<Book> scroll(Long afterId, int size) {
+		return repository.findByIdGreaterThan(afterId == null ? 0L : afterId, size);
+	}
+	
+	@Override
+	public Flux<Book> export() {
+		return repository.findAll();
+	}
+	
+	private static <T> Mono<T> blocking(Callable<T> write) {
+		return Mono.fromCallable(write).subscribeOn(Schedulers.boundedElastic());
+	}
+}
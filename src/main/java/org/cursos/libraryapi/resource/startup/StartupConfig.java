@@ -0,0 +1,27 @@
+package org.cursos.libraryapi.resource.startup;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.cursos.libraryapi.resource.cache.IsbnBloomFilter;
+import org.cursos.libraryapi.resource.outbox.ChangeRelay;
+import org.cursos.libraryapi.resource.writebehind.BookUpdateQueue;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Beans that stay eager when spring.main.lazy-initialization is on (see the
+ * fast-start profile). Building the entity manager factory is the bulk of
+ * the startup time, so deferring it would only move that time onto the first
+ * request; the update queue, the change relay and the isbn filter do work
+ * in the background that must start with the application.
+ */
+@Configuration
+public class StartupConfig {
+	
+	@Bean
+	public static LazyInitializationExcludeFilter eagerBeans() {
+		return LazyInitializationExcludeFilter.forBeanTypes(EntityManagerFactory.class,
+				BookUpdateQueue.class, ChangeRelay.class, IsbnBloomFilter.class);
+	}
+}
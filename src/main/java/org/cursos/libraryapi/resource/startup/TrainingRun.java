@@ -0,0 +1,37 @@
+package org.cursos.libraryapi.resource.startup;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Class loading run for the AppCDS archive of the cds build profile: once
+ * the application is ready it serves one request, so the web and JSON
+ * classes are loaded too, and exits.
+ */
+@Component
+@ConditionalOnProperty(name = "library.startup.training-run", havingValue = "true")
+public class TrainingRun implements ApplicationListener<ApplicationReadyEvent> {
+	
+	@Override
+	public void onApplicationEvent(ApplicationReadyEvent event) {
+		if(event.getApplicationContext() instanceof WebServerApplicationContext) {
+			int port = ((WebServerApplicationContext) event.getApplicationContext()).getWebServer().getPort();
+			try {
+				HttpClient.newHttpClient().send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/books/0")).build(),
+						HttpResponse.BodyHandlers.discarding());
+			} catch (Exception e) {
+				// the archive is still useful without the request classes
+			}
+		}
+		System.exit(SpringApplication.exit(event.getApplicationContext()));
+	}
+}
@@ -0,0 +1,82 @@
+package org.cursos.libraryapi.resource.threads;
+
+import java.util.concurrent.Executors;
+
+import org.cursos.libraryapi.resource.limit.ConcurrencyLimitFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Serves requests on virtual threads instead of the Tomcat worker pool.
+ * Without the pool there is no bound on concurrent requests anymore, so a
+ * bulkhead keeps a burst of slow lookups from queueing on the connection
+ * pool until every request times out. For the same reason the Hikari pool
+ * gets library.threads.pool-size connections and a short acquire timeout,
+ * unless spring.datasource.hikari sets them.
+ */
+@Configuration
+@ConditionalOnProperty(name = "library.threads.virtual", havingValue = "true")
+public class VirtualThreadsConfig {
+	
+	@Bean
+	public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer() {
+		return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+	}
+	
+	/**
+	 * Also reaches the pools behind a routing datasource, such as the
+	 * primary and replicas of ReplicaConfig. Read-only replica pools are
+	 * already sized by library.replicas.pool-size and only get the timeout.
+	 */
+	@Bean
+	public static BeanPostProcessor virtualThreadsPoolSizer(Environment environment) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				Object target = bean;
+				while(target instanceof DelegatingDataSource) {
+					target = ((DelegatingDataSource) target).getTargetDataSource();
+				}
+				if(target instanceof AbstractRoutingDataSource) {
+					((AbstractRoutingDataSource) target).getResolvedDataSources().values().forEach(pool -> bound(pool, environment));
+				} else {
+					bound(target, environment);
+				}
+				return bean;
+			}
+		};
+	}
+	
+	private static void bound(Object dataSource, Environment environment) {
+		if(!(dataSource instanceof HikariDataSource)) {
+			return;
+		}
+		HikariDataSource hikari = (HikariDataSource) dataSource;
+		if(!hikari.isReadOnly() && !environment.containsProperty("spring.datasource.hikari.maximum-pool-size")) {
+			hikari.setMaximumPoolSize(environment.getProperty("library.threads.pool-size", Integer.class, 20));
+		}
+		if(!environment.containsProperty("spring.datasource.hikari.connection-timeout")) {
+			hikari.setConnectionTimeout(environment.getProperty("library.threads.connection-timeout-ms", Long.class, 3000L));
+		}
+	}
+	
+	@Bean
+	public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+			@Value("${library.threads.max-concurrent-requests:200}") int maxConcurrentRequests,
+			@Value("${library.threads.acquire-timeout-ms:100}") long timeoutMillis) {
+		FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+				new FilterRegistrationBean<>(new ConcurrencyLimitFilter(maxConcurrentRequests, timeoutMillis));
+		registration.addUrlPatterns("/api/*");
+		return registration;
+	}
+}
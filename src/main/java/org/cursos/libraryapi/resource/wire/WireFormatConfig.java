@@ -0,0 +1,71 @@
+package org.cursos.libraryapi.resource.wire;
+
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Binary encodings of the same dtos for service-to-service callers, picked
+ * by the Accept and Content-Type headers: application/cbor and
+ * application/x-jackson-smile. They are built from the application's
+ * Jackson settings, so they serialize exactly what the JSON responses do,
+ * and come after the JSON converter so clients that accept anything still
+ * get JSON. As the body depends on Accept, every API response says so in
+ * Vary, or a shared cache could answer a JSON client with the CBOR body of
+ * the same ETag.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = Type.SERVLET)
+public class WireFormatConfig implements WebMvcConfigurer {
+	
+	public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+	
+	private final ObjectProvider<Jackson2ObjectMapperBuilder> builder;
+	
+	public WireFormatConfig(ObjectProvider<Jackson2ObjectMapperBuilder> builder) {
+		this.builder = builder;
+	}
+	
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new HandlerInterceptor() {
+			@Override
+			public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+				response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+				return true;
+			}
+		}).addPathPatterns("/api/**");
+	}
+	
+	@Override
+	public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+		converters.removeIf(converter -> converter instanceof MappingJackson2CborHttpMessageConverter
+				|| converter instanceof MappingJackson2SmileHttpMessageConverter);
+		int json = 0;
+		while(json < converters.size() && !(converters.get(json) instanceof MappingJackson2HttpMessageConverter)) {
+			json++;
+		}
+		int position = Math.min(json + 1, converters.size());
+		converters.add(position, new MappingJackson2SmileHttpMessageConverter(builder.getObject().factory(new SmileFactory()).build()));
+		converters.add(position, new MappingJackson2CborHttpMessageConverter(builder.getObject().factory(new CBORFactory()).build()));
+	}
+}
@@ -0,0 +1,222 @@
+package org.cursos.libraryapi.resource.writebehind;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+import org.cursos.libraryapi.resource.model.entity.Book;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Bounded write-behind queue for title and author corrections. Pending
+ * updates are coalesced per book id, the last one winning, and handed to the
+ * writer in batches once batchSize books are pending or every flush interval.
+ * Batches are written one at a time, so two updates of the same book are
+ * never applied out of order. A batch that fails is written again one book
+ * at a time, so only the updates that fail on their own are lost.
+ */
+public class BookUpdateQueue implements AutoCloseable {
+	
+	private static final Logger log = LoggerFactory.getLogger(BookUpdateQueue.class);
+
+	public enum Ack {
+		/** Acknowledge once the update is queued; it is lost if the process dies before the flush. */
+		ACCEPTED,
+		/** Acknowledge once the batch holding the update is committed. */
+		FLUSHED
+	}
+	
+	private final Map<Long, Pending> pending = new LinkedHashMap<>();
+	
+	private final int capacity;
+	
+	private final int batchSize;
+	
+	private final Consumer<List<Book>> writer;
+	
+	private final ScheduledExecutorService flusher;
+	
+	private final DistributionSummary batchSizes;
+	
+	private final Timer flushLatency;
+	
+	private final Counter failures;
+	
+	public BookUpdateQueue(int capacity, int batchSize, long flushIntervalMillis,
+			Consumer<List<Book>> writer, MeterRegistry meterRegistry) {
+		this.capacity = capacity;
+		this.batchSize = batchSize;
+		this.writer = writer;
+		this.flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+			Thread thread = new Thread(task, "book-write-behind");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+		
+		Gauge.builder("library.books.writebehind.depth", this, BookUpdateQueue::depth)
+				.description("Books waiting to be written")
+				.register(meterRegistry);
+		this.batchSizes = DistributionSummary.builder("library.books.writebehind.batch.size")
+				.description("Books written per flush")
+				.register(meterRegistry);
+		this.flushLatency = Timer.builder("library.books.writebehind.flush")
+				.description("Time to write one batch")
+				.publishPercentiles(0.5, 0.95, 0.99)
+				.register(meterRegistry);
+		this.failures = Counter.builder("library.books.writebehind.failures")
+				.description("Queued updates lost because they could not be written")
+				.register(meterRegistry);
+	}
+	
+	/**
+	 * Queues the update and, for {@link Ack#FLUSHED}, waits up to timeoutMillis
+	 * for its batch to commit.
+	 *
+	 * @return true if the update is already written, false if it is only queued
+	 * @throws RejectedExecutionException if the queue is full
+	 */
+	public boolean submit(Book update, Ack ack, long timeoutMillis) {
+		CompletableFuture<Void> written = enqueue(update);
+		if(ack == Ack.ACCEPTED) {
+			return false;
+		}
+		try {
+			written.get(timeoutMillis, TimeUnit.MILLISECONDS);
+			return true;
+		} catch (TimeoutException e) {
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+	
+	CompletableFuture<Void> enqueue(Book update) {
+		boolean full;
+		CompletableFuture<Void> written;
+		synchronized (pending) {
+			Pending queued = pending.get(update.getId());
+			if(queued != null) {
+				queued.book = update;
+				return queued.written;
+			}
+			if(pending.size() >= capacity) {
+				throw new RejectedExecutionException("Write-behind queue is full");
+			}
+			queued = new Pending(update);
+			pending.put(update.getId(), queued);
+			full = pending.size() >= batchSize;
+			written = queued.written;
+		}
+		if(full) {
+			flusher.execute(this::flush);
+		}
+		return written;
+	}
+	
+	public int depth() {
+		synchronized (pending) {
+			return pending.size();
+		}
+	}
+	
+	/**
+	 * Writes batches of at most batchSize books until the queue is empty.
+	 * Runs on the flusher thread only, or after it has stopped.
+	 */
+	void flush() {
+		List<Pending> batch;
+		while(!(batch = drain()).isEmpty()) {
+			List<Book> books = new ArrayList<>(batch.size());
+			batch.forEach(queued -> books.add(queued.book));
+			batchSizes.record(books.size());
+			try {
+				flushLatency.record(() -> writer.accept(books));
+				batch.forEach(queued -> queued.written.complete(null));
+			} catch (RuntimeException e) {
+				if(batch.size() == 1) {
+					fail(batch.get(0), e);
+				} else {
+					log.warn("Write-behind batch of {} books failed, writing them one by one", books.size(), e);
+					batch.forEach(this::writeAlone);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Retries one book of a failed batch on its own, so one bad update does
+	 * not take the rest of the batch down with it.
+	 */
+	private void writeAlone(Pending queued) {
+		try {
+			writer.accept(List.of(queued.book));
+			queued.written.complete(null);
+		} catch (RuntimeException e) {
+			fail(queued, e);
+		}
+	}
+	
+	private void fail(Pending queued, RuntimeException e) {
+		// ACCEPTED clients were answered already, so this is the only trace of the lost update
+		failures.increment();
+		log.error("Write-behind update of book {} failed and is lost", queued.book.getId(), e);
+		queued.written.completeExceptionally(e);
+	}
+	
+	private List<Pending> drain() {
+		synchronized (pending) {
+			List<Pending> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+			Iterator<Pending> iterator = pending.values().iterator();
+			while(iterator.hasNext() && batch.size() < batchSize) {
+				batch.add(iterator.next());
+				iterator.remove();
+			}
+			return batch;
+		}
+	}
+	
+	/**
+	 * Stops the timer and writes whatever is still pending.
+	 */
+	@Override
+	public void close() throws InterruptedException {
+		flusher.shutdown();
+		flusher.awaitTermination(10, TimeUnit.SECONDS);
+		flush();
+	}
+	
+	private static class Pending {
+	
+		private volatile Book book;
+		
+		private final CompletableFuture<Void> written = new CompletableFuture<>();
+		
+		Pending(Book book) {
+			this.book = book;
+		}
+	}
+}
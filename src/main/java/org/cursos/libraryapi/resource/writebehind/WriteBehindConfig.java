@@ -0,0 +1,35 @@
+package org.cursos.libraryapi.resource.writebehind;
+
+import org.cursos.libraryapi.resource.services.BookService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Routes PUT /api/books/{id} through a {@link BookUpdateQueue}, so bursts of
+ * small corrections are written as a few batched transactions instead of one
+ * transaction per request.
+ */
+@Configuration
+@ConditionalOnProperty(name = "library.write-behind.enabled", havingValue = "true")
+public class WriteBehindConfig {
+	
+	@Bean(destroyMethod = "close")
+	public BookUpdateQueue bookUpdateQueue(BookService service, CacheManager cacheManager, MeterRegistry meterRegistry,
+			@Value("${library.write-behind.capacity:100000}") int capacity,
+			@Value("${library.write-behind.batch-size:500}") int batchSize,
+			@Value("${library.write-behind.flush-interval-ms:200}") long flushIntervalMillis) {
+		return new BookUpdateQueue(capacity, batchSize, flushIntervalMillis, books -> {
+			service.updateAll(books);
+			Cache cache = cacheManager.getCache("books");
+			if(cache != null) {
+				books.forEach(book -> cache.evict(book.getId()));
+			}
+		}, meterRegistry);
+	}
+}
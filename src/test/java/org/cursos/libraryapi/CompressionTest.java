@@ -0,0 +1,70 @@
+package org.cursos.libraryapi;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.cursos.libraryapi.resource.model.entity.Book;
+import org.cursos.libraryapi.resource.services.BookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT,
+		properties = "spring.datasource.url=jdbc:h2:mem:compression;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+class CompressionTest {
+	
+	@LocalServerPort
+	int port;
+	
+	@Autowired
+	BookService service;
+	
+	Book book;
+	
+	@BeforeEach
+	void setUp() {
+		List<Book> books = new ArrayList<>();
+		for(int i = 0; i < 100; i++) {
+			books.add(Book.builder().title("My book " + i).author("Author").isbn("gzip-" + i + "-" + System.nanoTime()).build());
+		}
+		book = service.saveAll(books).get(0);
+	}
+	
+	@Test
+	@DisplayName("Should gzip large responses for clients that accept it.")
+	void largeResponseTest() throws Exception {
+		HttpResponse<byte[]> response = get("/api/books/export?format=ndjson", "application/x-ndjson");
+		
+		Assertions.assertThat(response.statusCode()).isEqualTo(200);
+		Assertions.assertThat(response.headers().firstValue("Content-Encoding")).hasValue("gzip");
+	}
+	
+	@Test
+	@DisplayName("Should not compress responses below the threshold.")
+	void smallResponseTest() throws Exception {
+		HttpResponse<byte[]> response = get("/api/books/" + book.getId(), "application/cbor");
+		
+		Assertions.assertThat(response.statusCode()).isEqualTo(200);
+		Assertions.assertThat(response.headers().firstValue("Content-Encoding")).isEmpty();
+		Assertions.assertThat(response.headers().allValues("Vary")).anySatisfy(vary -> Assertions.assertThat(vary).contains("Accept"));
+	}
+	
+	private HttpResponse<byte[]> get(String path, String accept) throws Exception {
+		HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+				.header("Accept", accept)
+				.header("Accept-Encoding", "gzip")
+				.build();
+		return HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofByteArray());
+	}
+}
@@ -0,0 +1,44 @@
+package org.cursos.libraryapi;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+@ActiveProfiles({ "fast-start", "test" })
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:fast-start;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@AutoConfigureMockMvc
+class FastStartProfileTest {
+	
+	@Autowired
+	ConfigurableListableBeanFactory beanFactory;
+	
+	@Autowired
+	MockMvc mvc;
+	
+	@Test
+	@DisplayName("Should initialize beans lazily except the entity manager factory.")
+	void lazyTest() {
+		Assertions.assertThat(beanFactory.getBeanDefinition("bookController").isLazyInit()).isTrue();
+		Assertions.assertThat(beanFactory.getBeanDefinition("entityManagerFactory").isLazyInit()).isFalse();
+	}
+	
+	@Test
+	@DisplayName("Should serve requests with the fast-start profile.")
+	void requestTest() throws Exception {
+		String json = "{\"title\":\"A\",\"author\":\"Author\",\"isbn\":\"fast-1\"}";
+		mvc.perform(MockMvcRequestBuilders.post("/api/books").contentType(MediaType.APPLICATION_JSON).content(json))
+			.andExpect(status().isCreated())
+			.andExpect(jsonPath("title").value("A"));
+	}
+}
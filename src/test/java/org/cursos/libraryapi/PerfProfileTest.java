@@ -0,0 +1,59 @@
+package org.cursos.libraryapi;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import javax.sql.DataSource;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+@ActiveProfiles({ "perf", "test" })
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:perf;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE;QUERY_CACHE_SIZE=64")
+@AutoConfigureMockMvc
+class PerfProfileTest {
+	
+	@Autowired
+	ApplicationContext context;
+	
+	@Autowired
+	DataSource dataSource;
+	
+	@Autowired
+	MockMvc mvc;
+	
+	@Test
+	@DisplayName("Should apply the pool and open-in-view settings of the perf profile.")
+	void settingsTest() {
+		HikariDataSource hikari = (HikariDataSource) dataSource;
+		
+		Assertions.assertThat(hikari.isAutoCommit()).isFalse();
+		Assertions.assertThat(hikari.getMaximumPoolSize()).isEqualTo(hikari.getMinimumIdle());
+		Assertions.assertThat(context.getBeansOfType(OpenEntityManagerInViewInterceptor.class)).isEmpty();
+	}
+	
+	@Test
+	@DisplayName("Should commit writes with auto-commit disabled.")
+	void writeTest() throws Exception {
+		String json = "[{\"title\":\"A\",\"author\":\"Author\",\"isbn\":\"perf-1\"},"
+				+ "{\"title\":\"B\",\"author\":\"Author\",\"isbn\":\"perf-2\"}]";
+		mvc.perform(MockMvcRequestBuilders.post("/api/books/bulk").contentType(MediaType.APPLICATION_JSON).content(json))
+			.andExpect(status().isOk());
+		
+		mvc.perform(MockMvcRequestBuilders.get("/api/books?isbn=perf-2").accept(MediaType.APPLICATION_JSON))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("content[0].title").value("B"));
+	}
+}
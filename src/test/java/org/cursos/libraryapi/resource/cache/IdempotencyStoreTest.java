@@ -0,0 +1,90 @@
+package org.cursos.libraryapi.resource.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class IdempotencyStoreTest {
+	
+	IdempotencyStore store = new IdempotencyStore(1000, 60, 16);
+	
+	@Test
+	@DisplayName("Should replay the first result of a key.")
+	public void replayTest() {
+		IdempotencyStore.Outcome<String> first = store.execute("key", "request", () -> "created");
+		IdempotencyStore.Outcome<String> retry = store.execute("key", "request", () -> "again");
+		
+		Assertions.assertThat(first.getValue()).isEqualTo("created");
+		Assertions.assertThat(first.isReplayed()).isFalse();
+		Assertions.assertThat(retry.getValue()).isEqualTo("created");
+		Assertions.assertThat(retry.isReplayed()).isTrue();
+	}
+	
+	@Test
+	@DisplayName("Should report a key reused for another request as a conflict.")
+	public void conflictTest() {
+		store.execute("key", "request", () -> "created");
+		
+		IdempotencyStore.Outcome<String> other = store.execute("key", "other request", () -> "again");
+		
+		Assertions.assertThat(other.isConflict()).isTrue();
+		Assertions.assertThat(other.getValue()).isNull();
+	}
+	
+	@Test
+	@DisplayName("Should not remember failed actions.")
+	public void failureTest() {
+		Throwable exception = Assertions.catchThrowable(() -> store.execute("key", "request", () -> {
+			throw new IllegalStateException("boom");
+		}));
+		IdempotencyStore.Outcome<String> retry = store.execute("key", "request", () -> "created");
+		
+		Assertions.assertThat(exception).isInstanceOf(IllegalStateException.class);
+		Assertions.assertThat(retry.getValue()).isEqualTo("created");
+		Assertions.assertThat(retry.isReplayed()).isFalse();
+	}
+	
+	@Test
+	@DisplayName("Should run the action once for concurrent duplicates.")
+	public void concurrentDuplicatesTest() throws Exception {
+		AtomicInteger runs = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<IdempotencyStore.Outcome<Integer>>> results = new ArrayList<>();
+			for(int i = 0; i < 8; i++) {
+				results.add(executor.submit(() -> {
+					start.await();
+					return store.execute("key", "request", () -> {
+						sleep(20);
+						return runs.incrementAndGet();
+					});
+				}));
+			}
+			start.countDown();
+			
+			for(Future<IdempotencyStore.Outcome<Integer>> result : results) {
+				Assertions.assertThat(result.get().getValue()).isEqualTo(1);
+			}
+			Assertions.assertThat(runs.get()).isEqualTo(1);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package org.cursos.libraryapi.resource.cache;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class IsbnBloomFilterTest {
+	
+	@Test
+	@DisplayName("Should report every isbn as possibly present before warm up.")
+	public void notReadyFilterTest() {
+		IsbnBloomFilter filter = new IsbnBloomFilter(1000, 0.01);
+		
+		Assertions.assertThat(filter.mightContain("123456")).isTrue();
+	}
+	
+	@Test
+	@DisplayName("Should never report a stored isbn as absent.")
+	public void storedIsbnTest() {
+		IsbnBloomFilter filter = new IsbnBloomFilter(10000, 0.01);
+		for(int i = 0; i < 10000; i++) {
+			filter.put("isbn-" + i);
+		}
+		filter.markReady();
+		
+		for(int i = 0; i < 10000; i++) {
+			Assertions.assertThat(filter.mightContain("isbn-" + i)).isTrue();
+		}
+	}
+	
+	@Test
+	@DisplayName("Should keep false positives close to the configured rate.")
+	public void falsePositiveRateTest() {
+		IsbnBloomFilter filter = new IsbnBloomFilter(10000, 0.01);
+		for(int i = 0; i < 10000; i++) {
+			filter.put("isbn-" + i);
+		}
+		filter.markReady();
+		
+		int falsePositives = 0;
+		for(int i = 0; i < 10000; i++) {
+			if(filter.mightContain("other-" + i)) {
+				falsePositives++;
+			}
+		}
+		
+		Assertions.assertThat(falsePositives).isLessThan(300);
+	}
+}
@@ -0,0 +1,87 @@
+package org.cursos.libraryapi.resource.cache;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.assertj.core.api.Assertions;
+import org.cursos.libraryapi.resource.model.dto.BookDTO;
+import org.cursos.libraryapi.resource.model.entity.Book;
+import org.cursos.libraryapi.resource.repository.BookRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+		"library.response-cache.enabled=true",
+		"spring.datasource.url=jdbc:h2:mem:responsecache;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE" })
+@AutoConfigureMockMvc
+public class ResponseCacheTest {
+	
+	static String BOOK_API = "/api/books";
+	
+	@Autowired
+	MockMvc mvc;
+	
+	@Autowired
+	BookRepository repository;
+	
+	@Autowired
+	SerializedBookCache cache;
+	
+	@Test
+	@DisplayName("Should serve a book from its cached body until it is updated.")
+	public void invalidationTest() throws Exception {
+		Book book = repository.save(Book.builder().title("My book").author("Author").isbn("rc-1").build());
+		String url = BOOK_API.concat("/" + book.getId());
+		
+		mvc.perform(MockMvcRequestBuilders.get(url).accept(MediaType.APPLICATION_JSON))
+			.andExpect(status().isOk())
+			.andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+			.andExpect(jsonPath("title").value("My book"));
+		Assertions.assertThat(cache.get(book.getId())).isNotNull();
+		mvc.perform(MockMvcRequestBuilders.get(url).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+			.andExpect(status().isNotModified());
+		
+		String json = new ObjectMapper().writeValueAsString(BookDTO.builder().title("New title").author("Author").build());
+		mvc.perform(MockMvcRequestBuilders.put(url).contentType(MediaType.APPLICATION_JSON).content(json))
+			.andExpect(status().isOk());
+		Assertions.assertThat(cache.get(book.getId())).isNull();
+		
+		mvc.perform(MockMvcRequestBuilders.get(url))
+			.andExpect(status().isOk())
+			.andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+			.andExpect(jsonPath("title").value("New title"));
+		
+		mvc.perform(MockMvcRequestBuilders.delete(url))
+			.andExpect(status().isNoContent());
+		mvc.perform(MockMvcRequestBuilders.get(url))
+			.andExpect(status().isNotFound());
+	}
+	
+	@Test
+	@DisplayName("Should bypass the cached body for binary formats.")
+	public void binaryTest() throws Exception {
+		Book book = repository.save(Book.builder().title("My book").author("Author").isbn("rc-2").build());
+		String url = BOOK_API.concat("/" + book.getId());
+		
+		mvc.perform(MockMvcRequestBuilders.get(url).accept(MediaType.APPLICATION_CBOR))
+			.andExpect(status().isOk())
+			.andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_CBOR_VALUE));
+		
+		Assertions.assertThat(cache.get(book.getId())).isNull();
+	}
+}
@@ -0,0 +1,63 @@
+package org.cursos.libraryapi.resource.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class SerializedBookCacheTest {
+	
+	SerializedBookCache cache = new SerializedBookCache(1024, 600, new SimpleMeterRegistry());
+	
+	@Test
+	@DisplayName("Should write back the cached body with its ETag.")
+	public void putTest() throws Exception {
+		byte[] json = "{\"id\":1,\"title\":\"My book\"}".getBytes(StandardCharsets.UTF_8);
+		cache.put(1L, cache.generation(1L), 3L, json);
+		
+		SerializedBookCache.Entry entry = cache.get(1L);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		entry.writeTo(out);
+		entry.writeTo(out);
+		
+		Assertions.assertThat(entry.getETag()).isEqualTo("\"3\"");
+		Assertions.assertThat(entry.getLength()).isEqualTo(json.length);
+		Assertions.assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(new String(json, StandardCharsets.UTF_8).repeat(2));
+		Assertions.assertThat(cache.size()).isEqualTo(json.length);
+	}
+	
+	@Test
+	@DisplayName("Should not keep a body larger than the cache.")
+	public void tooLargeTest() {
+		SerializedBookCache.Entry entry = cache.put(1L, cache.generation(1L), 0L, new byte[2048]);
+		
+		Assertions.assertThat(entry.getLength()).isEqualTo(2048);
+		Assertions.assertThat(cache.get(1L)).isNull();
+	}
+	
+	@Test
+	@DisplayName("Should evict at once outside a transaction.")
+	public void evictTest() {
+		cache.put(1L, cache.generation(1L), 0L, new byte[10]);
+		
+		cache.evictAfterCommit(1L);
+		
+		Assertions.assertThat(cache.get(1L)).isNull();
+	}
+	
+	@Test
+	@DisplayName("Should not cache a body read before the book was evicted.")
+	public void stalePutTest() {
+		long generation = cache.generation(1L);
+		cache.evictAfterCommit(1L);
+		
+		SerializedBookCache.Entry entry = cache.put(1L, generation, 0L, new byte[10]);
+		
+		Assertions.assertThat(entry.getLength()).isEqualTo(10);
+		Assertions.assertThat(cache.get(1L)).isNull();
+	}
+}
@@ -0,0 +1,136 @@
+package org.cursos.libraryapi.resource.controller;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.assertj.core.api.Assertions;
+import org.cursos.libraryapi.resource.model.dto.BookDTO;
+import org.cursos.libraryapi.resource.model.entity.Book;
+import org.cursos.libraryapi.resource.repository.BookRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+@AutoConfigureMockMvc
+public class BookCacheTest {
+	
+	static String BOOK_API = "/api/books";
+	
+	@Autowired
+	MockMvc mvc;
+	
+	@SpyBean
+	BookRepository repository;
+	
+	@Autowired
+	CacheManager cacheManager;
+	
+	@Autowired
+	TransactionTemplate transactionTemplate;
+	
+	@Test
+	@DisplayName("Should serve repeated reads from the cache until the book is updated.")
+	public void cachedGetTest() throws Exception {
+		Book book = repository.save(Book.builder().title("My book").author("Author").isbn("cache-1").build());
+		String url = BOOK_API.concat("/" + book.getId());
+		
+		mvc.perform(MockMvcRequestBuilders.get(url).accept(MediaType.APPLICATION_JSON))
+			.andExpect(status().isOk());
+		mvc.perform(MockMvcRequestBuilders.get(url).accept(MediaType.APPLICATION_JSON))
+			.andExpect(status().isOk());
+		
+		Mockito.verify(repository, Mockito.times(1)).findDtoById(book.getId());
+		
+		String json = new ObjectMapper().writeValueAsString(BookDTO.builder().title("New title").author("Author").build());
+		mvc.perform(MockMvcRequestBuilders.put(url).contentType(MediaType.APPLICATION_JSON).content(json))
+			.andExpect(status().isOk());
+		mvc.perform(MockMvcRequestBuilders.get(url).accept(MediaType.APPLICATION_JSON))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("title").value("New title"));
+		
+		Mockito.verify(repository, Mockito.times(2)).findDtoById(book.getId());
+	}
+	
+	@Test
+	@DisplayName("Should evict a cached book only once the updating transaction commits.")
+	public void evictAfterCommitTest() {
+		Cache cache = cacheManager.getCache("books");
+		cache.put(1L, BookDTO.builder().id(1L).title("Old title").build());
+		
+		transactionTemplate.executeWithoutResult(status -> {
+			cache.evict(1L);
+			Assertions.assertThat(cache.get(1L)).isNotNull();
+		});
+		
+		Assertions.assertThat(cache.get(1L)).isNull();
+	}
+	
+	@Test
+	@DisplayName("Should not keep a book read before an update that committed during the read.")
+	public void slowReadTest() throws Exception {
+		Book book = repository.save(Book.builder().title("My book").author("Author").isbn("cache-2").build());
+		String url = BOOK_API.concat("/" + book.getId());
+		CountDownLatch readDone = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Answer<?> real = Mockito.mockingDetails(repository).getMockCreationSettings().getDefaultAnswer();
+		Mockito.doAnswer(invocation -> {
+			Object stale = real.answer(invocation);
+			readDone.countDown();
+			release.await(10, TimeUnit.SECONDS);
+			return stale;
+		}).doAnswer(real).when(repository).findDtoById(book.getId());
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<?> read = executor.submit(() -> mvc.perform(MockMvcRequestBuilders.get(url).accept(MediaType.APPLICATION_JSON))
+					.andExpect(jsonPath("title").value("My book")));
+			Assertions.assertThat(readDone.await(10, TimeUnit.SECONDS)).isTrue();
+			
+			String json = new ObjectMapper().writeValueAsString(BookDTO.builder().title("New title").author("Author").build());
+			Future<?> update = executor.submit(() -> mvc.perform(MockMvcRequestBuilders.put(url).contentType(MediaType.APPLICATION_JSON).content(json))
+					.andExpect(status().isOk()));
+			while(!repository.findById(book.getId()).map(stored -> "New title".equals(stored.getTitle())).orElse(false)) {
+				Thread.sleep(10);
+			}
+			try {
+				update.get(1, TimeUnit.SECONDS);
+			} catch (TimeoutException e) {
+				// the eviction after the commit waits for the read to finish
+			}
+			release.countDown();
+			read.get(10, TimeUnit.SECONDS);
+			update.get(10, TimeUnit.SECONDS);
+		} finally {
+			executor.shutdownNow();
+		}
+		
+		mvc.perform(MockMvcRequestBuilders.get(url).accept(MediaType.APPLICATION_JSON))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("title").value("New title"));
+	}
+}
@@ -3,14 +3,19 @@ package org.cursos.libraryapi.resource.controller;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-import java.awt.print.Pageable;
+import java.util.Arrays;
 import java.util.Optional;
+import java.util.function.Consumer;
 
-import org.assertj.core.util.Arrays;
+import org.assertj.core.api.Assertions;
+import org.cursos.libraryapi.resource.cache.IdempotencyStore;
 import org.cursos.libraryapi.resource.exception.BusinessException;
+import org.cursos.libraryapi.resource.exception.ErrorCode;
 import org.cursos.libraryapi.resource.model.dto.BookDTO;
+import org.cursos.libraryapi.resource.model.dto.BookLookupResultDTO;
 import org.cursos.libraryapi.resource.model.entity.Book;
 import org.cursos.libraryapi.resource.services.BookService;
+import org.cursos.libraryapi.resource.wire.WireFormatConfig;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -21,9 +26,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
@@ -32,11 +42,14 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
 @WebMvcTest
 @AutoConfigureMockMvc
+@Import(IdempotencyStore.class)
 public class BookControllerTest {
 	
 	static String BOOK_API = "/api/books";
@@ -71,6 +84,47 @@ public class BookControllerTest {
 		
 	}
 	
+	@Test
+	@DisplayName("Should replay the original response to a retried create.")
+	public void createBookIdempotentTest() throws Exception {
+		BookDTO dto = BookDTO.builder().title("My book").author("Author").isbn("123456").build();
+		Book book = Book.builder().id(10L).title("My book").author("Author").isbn("123456").build();
+		BDDMockito.given(service.save(Mockito.any(Book.class))).willReturn(book);
+		
+		String json = new ObjectMapper().writeValueAsString(dto);
+		MockHttpServletRequestBuilder content = MockMvcRequestBuilders
+				.post(BOOK_API)
+				.header("Idempotency-Key", "create-1")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(json);
+		
+		mvc.perform(content)
+			.andExpect(status().isCreated())
+			.andExpect(MockMvcResultMatchers.header().doesNotExist("Idempotent-Replayed"));
+		mvc.perform(content)
+			.andExpect(status().isCreated())
+			.andExpect(MockMvcResultMatchers.header().string("Idempotent-Replayed", "true"))
+			.andExpect(jsonPath("id").value(10));
+		
+		Mockito.verify(service, Mockito.times(1)).save(Mockito.any(Book.class));
+	}
+	
+	@Test
+	@DisplayName("Should not reuse an idempotency key for another book.")
+	public void createBookIdempotencyConflictTest() throws Exception {
+		BDDMockito.given(service.save(Mockito.any(Book.class))).willReturn(Book.builder().id(10L).build());
+		ObjectMapper mapper = new ObjectMapper();
+		
+		mvc.perform(MockMvcRequestBuilders.post(BOOK_API).header("Idempotency-Key", "create-2")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(mapper.writeValueAsString(BookDTO.builder().title("A").author("Author").isbn("1").build())))
+			.andExpect(status().isCreated());
+		mvc.perform(MockMvcRequestBuilders.post(BOOK_API).header("Idempotency-Key", "create-2")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(mapper.writeValueAsString(BookDTO.builder().title("B").author("Author").isbn("2").build())))
+			.andExpect(status().isUnprocessableEntity());
+	}
+	
 	@Test
 	@DisplayName("Should not be able to create a book with invalid data.")
 	public void createInvalidBookTest() throws Exception {
@@ -92,7 +146,7 @@ public class BookControllerTest {
 		BookDTO dto = BookDTO.builder().title("My book").author("Author").isbn("123456").build();
 		String json = new ObjectMapper().writeValueAsString(dto);
 		String errorMessage = "Isbn already exists.";
-		BDDMockito.given(service.save(Mockito.any(Book.class))).willThrow(new BusinessException(errorMessage));
+		BDDMockito.given(service.save(Mockito.any(Book.class))).willThrow(new BusinessException(ErrorCode.DUPLICATE_ISBN));
 		
 		
 		MockHttpServletRequestBuilder content = MockMvcRequestBuilders
@@ -103,6 +157,7 @@ public class BookControllerTest {
 		
 		mvc.perform(content)
 			.andExpect(status().isBadRequest())
+			.andExpect(jsonPath("code").value("DUPLICATE_ISBN"))
 			.andExpect(jsonPath("errors", Matchers.hasSize(1)))
 			.andExpect(jsonPath("errors[0]").value(errorMessage));
 	}
@@ -111,8 +166,8 @@ public class BookControllerTest {
 	@DisplayName("Should be able to find details of a book")
 	public void getBookDetailsTest() throws Exception {
 		Long id = 1L;
-		Book book = Book.builder().id(id).title("My book").author("Author").isbn("123456").build();
-		BDDMockito.given(service.getById(id)).willReturn(Optional.of(book));
+		BookDTO book = BookDTO.builder().id(id).title("My book").author("Author").isbn("123456").build();
+		BDDMockito.given(service.getDtoById(id)).willReturn(Optional.of(book));
 		
 		MockHttpServletRequestBuilder content = MockMvcRequestBuilders
 				.get(BOOK_API.concat("/"+id))
@@ -130,7 +185,7 @@ public class BookControllerTest {
 	@DisplayName("Throw error if book not exists.")
 	public void getBookNotFoundTest() throws Exception {
 		Long id = 1L;
-		BDDMockito.given(service.getById(Mockito.anyLong())).willReturn(Optional.empty());
+		BDDMockito.given(service.getDtoById(Mockito.anyLong())).willReturn(Optional.empty());
 		
 		MockHttpServletRequestBuilder content = MockMvcRequestBuilders
 				.get(BOOK_API.concat("/"+id))
@@ -191,6 +246,21 @@ public class BookControllerTest {
 		    .andExpect(MockMvcResultMatchers.jsonPath("isbn").value(book.getIsbn()));
 	}
 	
+	@Test
+	@DisplayName("Should not update a book to an empty title or author.")
+	public void updateInvalidBookTest() throws Exception {
+		String json = new ObjectMapper().writeValueAsString(BookDTO.builder().author("Author").build());
+		
+		mvc.perform(MockMvcRequestBuilders.put(BOOK_API.concat("/1"))
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON)
+				.content(json))
+			.andExpect(status().isBadRequest())
+			.andExpect(jsonPath("errors", Matchers.hasSize(1)));
+		
+		Mockito.verify(service, Mockito.never()).update(Mockito.any(Book.class));
+	}
+	
 	@Test
 	@DisplayName("Throw error if book not exists on update.")
 	public void updateBookNotFoundTest() throws Exception {
@@ -209,15 +279,331 @@ public class BookControllerTest {
 			.andExpect(MockMvcResultMatchers.status().isNotFound());
 	}
 	
+	@Test
+	@DisplayName("Should return the version of a book as its ETag.")
+	public void getBookETagTest() throws Exception {
+		Long id = 1L;
+		BookDTO book = BookDTO.builder().id(id).title("My book").author("Author").isbn("123456").version(3L).build();
+		BDDMockito.given(service.getDtoById(id)).willReturn(Optional.of(book));
+		
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/"+id)).accept(MediaType.APPLICATION_JSON))
+			.andExpect(MockMvcResultMatchers.status().isOk())
+			.andExpect(MockMvcResultMatchers.header().string(HttpHeaders.ETAG, "\"3\""))
+			.andExpect(MockMvcResultMatchers.jsonPath("version").value(3));
+		
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/"+id))
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+			.andExpect(MockMvcResultMatchers.status().isNotModified())
+			.andExpect(MockMvcResultMatchers.content().string(""));
+	}
+	
+	@Test
+	@DisplayName("Should not update a book with a stale If-Match.")
+	public void updateBookStaleVersionTest() throws Exception {
+		Long id = 1L;
+		String json = new ObjectMapper().writeValueAsString(BookDTO.builder().title("My book").author("Author").build());
+		Book book = Book.builder().id(id).title("Book of update").author("updater").isbn("005").version(2L).build();
+		BDDMockito.given(service.getById(Mockito.anyLong())).willReturn(Optional.of(book));
+		
+		mvc.perform(MockMvcRequestBuilders.put(BOOK_API.concat("/"+id))
+				.contentType(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.IF_MATCH, "\"1\"")
+				.content(json))
+			.andExpect(MockMvcResultMatchers.status().isPreconditionFailed());
+		
+		Mockito.verify(service, Mockito.never()).update(Mockito.any(Book.class));
+	}
+	
+	@Test
+	@DisplayName("Should answer 412 when a concurrent update wins.")
+	public void updateBookConcurrentModificationTest() throws Exception {
+		Long id = 1L;
+		String json = new ObjectMapper().writeValueAsString(BookDTO.builder().title("My book").author("Author").build());
+		Book book = Book.builder().id(id).title("Book of update").author("updater").isbn("005").version(2L).build();
+		BDDMockito.given(service.getById(Mockito.anyLong())).willReturn(Optional.of(book));
+		BDDMockito.given(service.update(Mockito.any(Book.class))).willThrow(new ObjectOptimisticLockingFailureException(Book.class, id));
+		
+		mvc.perform(MockMvcRequestBuilders.put(BOOK_API.concat("/"+id))
+				.contentType(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.IF_MATCH, "\"2\"")
+				.content(json))
+			.andExpect(MockMvcResultMatchers.status().isPreconditionFailed());
+	}
+	
 	@Test
 	@DisplayName("Should be able to find a book.")
 	public void findBooksTest() throws Exception {
 		Long id = 1L;
-		Book book = Book.builder().title("My book").author("Author").isbn("123456").build();
+		Book book = Book.builder().id(id).title("My book").author("Author").isbn("123456").build();
 		
 		BDDMockito.given(service.find(Mockito.any(Book.class), Mockito.any(Pageable.class)))
 				  .willReturn(new PageImpl<Book>(Arrays.asList(book), PageRequest.of(0, 100), 1) );
+		
+		String queryString = String.format("?title=%s&author=%s&page=0&size=100", book.getTitle(), book.getAuthor());
+		
+		MockHttpServletRequestBuilder content = MockMvcRequestBuilders
+				.get(BOOK_API.concat(queryString))
+				.accept(MediaType.APPLICATION_JSON);
+		
+		mvc.perform(content)
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("content", Matchers.hasSize(1)))
+			.andExpect(jsonPath("totalElements").value(1))
+			.andExpect(jsonPath("pageable.pageSize").value(100))
+			.andExpect(jsonPath("pageable.pageNumber").value(0));
+	}
+	
+	@Test
+	@DisplayName("Should be able to list books after a cursor.")
+	public void scrollBooksTest() throws Exception {
+		BookDTO book = BookDTO.builder().id(2L).title("My book").author("Author").isbn("123456").build();
+		
+		BDDMockito.given(service.scroll(Mockito.any(), Mockito.any(Pageable.class)))
+				  .willReturn(new SliceImpl<BookDTO>(Arrays.asList(book), PageRequest.of(0, 1), true));
+		
+		MockHttpServletRequestBuilder content = MockMvcRequestBuilders
+				.get(BOOK_API.concat("?after=&size=1"))
+				.accept(MediaType.APPLICATION_JSON);
+		
+		mvc.perform(content)
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("content", Matchers.hasSize(1)))
+			.andExpect(jsonPath("content[0].id").value(2))
+			.andExpect(jsonPath("next").isNotEmpty())
+			.andExpect(jsonPath("totalElements").doesNotExist());
 	}
 	
+	@Test
+	@DisplayName("Throw error if the cursor is invalid.")
+	public void scrollBooksInvalidCursorTest() throws Exception {
+		MockHttpServletRequestBuilder content = MockMvcRequestBuilders
+				.get(BOOK_API.concat("?after=invalid&sort=title"))
+				.accept(MediaType.APPLICATION_JSON);
+		
+		mvc.perform(content)
+			.andExpect(status().isBadRequest());
+	}
+	
+	@Test
+	@DisplayName("Throw error if the cursor listing is sorted descending.")
+	public void scrollBooksDescendingTest() throws Exception {
+		MockHttpServletRequestBuilder content = MockMvcRequestBuilders
+				.get(BOOK_API.concat("?after=&sort=title,desc"))
+				.accept(MediaType.APPLICATION_JSON);
+		
+		mvc.perform(content)
+			.andExpect(status().isBadRequest());
+		Mockito.verify(service, Mockito.never()).scroll(Mockito.any(), Mockito.any(Pageable.class));
+	}
 	
+	@Test
+	@DisplayName("Should be able to import a list of books.")
+	public void importBooksTest() throws Exception {
+		BookDTO valid = BookDTO.builder().title("My book").author("Author").isbn("123456").build();
+		BookDTO duplicated = BookDTO.builder().title("Other book").author("Author").isbn("654321").build();
+		String json = new ObjectMapper().writeValueAsString(Arrays.asList(valid, new BookDTO(), duplicated));
+		
+		BDDMockito.given(service.saveAll(Mockito.anyList()))
+				  .willReturn(Arrays.asList(Book.builder().id(10L).isbn("123456").build(), null));
+		
+		MockHttpServletRequestBuilder content = MockMvcRequestBuilders
+				.post(BOOK_API.concat("/bulk"))
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON)
+				.content(json);
+		
+		mvc.perform(content)
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$", Matchers.hasSize(3)))
+			.andExpect(jsonPath("[0].status").value(201))
+			.andExpect(jsonPath("[0].id").value(10))
+			.andExpect(jsonPath("[1].status").value(400))
+			.andExpect(jsonPath("[1].errors", Matchers.hasSize(3)))
+			.andExpect(jsonPath("[2].index").value(2))
+			.andExpect(jsonPath("[2].status").value(400))
+			.andExpect(jsonPath("[2].errors[0]").value("Isbn already exists."));
+	}
+	
+	@Test
+	@DisplayName("Should retry an import chunk that lost an isbn race and report every book.")
+	public void importBooksConcurrentDuplicateTest() throws Exception {
+		BookDTO taken = BookDTO.builder().title("My book").author("Author").isbn("1").build();
+		BookDTO fresh = BookDTO.builder().title("Other book").author("Author").isbn("2").build();
+		String json = new ObjectMapper().writeValueAsString(Arrays.asList(taken, fresh));
+		
+		BDDMockito.given(service.saveAll(Mockito.anyList()))
+				  .willThrow(new BusinessException(ErrorCode.DUPLICATE_ISBN))
+				  .willReturn(Arrays.asList(null, Book.builder().id(2L).isbn("2").build()));
+		
+		MockHttpServletRequestBuilder content = MockMvcRequestBuilders
+				.post(BOOK_API.concat("/bulk"))
+				.contentType(MediaType.APPLICATION_JSON)
+				.accept(MediaType.APPLICATION_JSON)
+				.content(json);
+		
+		mvc.perform(content)
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("[0].status").value(400))
+			.andExpect(jsonPath("[0].errors[0]").value("Isbn already exists."))
+			.andExpect(jsonPath("[1].status").value(201))
+			.andExpect(jsonPath("[1].id").value(2));
+		Mockito.verify(service, Mockito.times(2)).saveAll(Mockito.anyList());
+	}
+	
+	@Test
+	@DisplayName("Should be able to import a stream of books.")
+	public void importBooksStreamTest() throws Exception {
+		ObjectMapper mapper = new ObjectMapper();
+		String ndjson = mapper.writeValueAsString(BookDTO.builder().title("My book").author("Author").isbn("1").build())
+				+ "\n" + mapper.writeValueAsString(BookDTO.builder().title("My book").author("Author").isbn("2").build());
+		
+		BDDMockito.given(service.saveAll(Mockito.anyList()))
+				  .willReturn(Arrays.asList(Book.builder().id(1L).build(), Book.builder().id(2L).build()));
+		
+		MockHttpServletRequestBuilder content = MockMvcRequestBuilders
+				.post(BOOK_API.concat("/bulk"))
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.accept(MediaType.APPLICATION_JSON)
+				.content(ndjson);
+		
+		mvc.perform(content)
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$", Matchers.hasSize(2)))
+			.andExpect(jsonPath("[1].id").value(2));
+	}
+	
+	@Test
+	@DisplayName("Should be able to export the books as ndjson.")
+	@SuppressWarnings("unchecked")
+	public void exportBooksNdjsonTest() throws Exception {
+		BDDMockito.willAnswer(invocation -> {
+			Consumer<Book> consumer = invocation.getArgument(0);
+			consumer.accept(Book.builder().id(1L).title("My book").author("Author").isbn("1").build());
+			consumer.accept(Book.builder().id(2L).title("Other book").author("Author").isbn("2").build());
+			return null;
+		}).given(service).export(Mockito.any(Consumer.class));
+		
+		MockHttpServletRequestBuilder content = MockMvcRequestBuilders
+				.get(BOOK_API.concat("/export"));
+		
+		String body = mvc.perform(content)
+			.andExpect(status().isOk())
+			.andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_NDJSON))
+			.andReturn().getResponse().getContentAsString();
+		
+		String[] lines = body.split("\n");
+		Assertions.assertThat(lines).hasSize(2);
+		Assertions.assertThat(new ObjectMapper().readValue(lines[1], BookDTO.class).getIsbn()).isEqualTo("2");
+	}
+	
+	@Test
+	@DisplayName("Should be able to export the books as csv.")
+	@SuppressWarnings("unchecked")
+	public void exportBooksCsvTest() throws Exception {
+		BDDMockito.willAnswer(invocation -> {
+			Consumer<Book> consumer = invocation.getArgument(0);
+			consumer.accept(Book.builder().id(1L).title("Book, \"the\"").author("Author").isbn("1").build());
+			return null;
+		}).given(service).export(Mockito.any(Consumer.class));
+		
+		MockHttpServletRequestBuilder content = MockMvcRequestBuilders
+				.get(BOOK_API.concat("/export?format=csv"));
+		
+		mvc.perform(content)
+			.andExpect(status().isOk())
+			.andExpect(MockMvcResultMatchers.content().string("id,title,author,isbn\n1,\"Book, \"\"the\"\"\",Author,1\n"));
+	}
+	
+	@Test
+	@DisplayName("Should be able to search books by text.")
+	public void searchBooksTest() throws Exception {
+		Book book = Book.builder().id(1L).title("Clean Code").author("Robert Martin").isbn("123456").build();
+		
+		BDDMockito.given(service.search(Mockito.eq("clean"), Mockito.any(Pageable.class)))
+				  .willReturn(new PageImpl<Book>(Arrays.asList(book), PageRequest.of(0, 10), 1));
+		
+		MockHttpServletRequestBuilder content = MockMvcRequestBuilders
+				.get(BOOK_API.concat("/search?q=clean&page=0&size=10"))
+				.accept(MediaType.APPLICATION_JSON);
+		
+		mvc.perform(content)
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("content", Matchers.hasSize(1)))
+			.andExpect(jsonPath("content[0].title").value("Clean Code"))
+			.andExpect(jsonPath("totalElements").value(1));
+	}
+	
+	@Test
+	@DisplayName("Should be able to find many books by id in request order.")
+	public void getBooksByIdsTest() throws Exception {
+		BookDTO book = BookDTO.builder().id(2L).title("My book").author("Author").isbn("123456").build();
+		BDDMockito.given(service.getByIds(Arrays.asList(3L, 2L))).willReturn(Arrays.asList(null, book));
+		
+		MockHttpServletRequestBuilder content = MockMvcRequestBuilders
+				.get(BOOK_API.concat("/batch?ids=3,2"))
+				.accept(MediaType.APPLICATION_JSON);
+		
+		mvc.perform(content)
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$", Matchers.hasSize(2)))
+			.andExpect(jsonPath("[0].key").value("3"))
+			.andExpect(jsonPath("[0].status").value(404))
+			.andExpect(jsonPath("[1].status").value(200))
+			.andExpect(jsonPath("[1].book.isbn").value("123456"));
+	}
+	
+	@Test
+	@DisplayName("Should encode a batch lookup as CBOR when asked for it.")
+	public void getBooksByIdsCborTest() throws Exception {
+		BookDTO book = BookDTO.builder().id(2L).title("My book").author("Author").isbn("123456").build();
+		BDDMockito.given(service.getByIds(Arrays.asList(2L))).willReturn(Arrays.asList(book));
+		
+		byte[] body = mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/batch?ids=2")).accept(MediaType.APPLICATION_CBOR))
+			.andExpect(status().isOk())
+			.andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_CBOR))
+			.andReturn().getResponse().getContentAsByteArray();
+		
+		BookLookupResultDTO[] results = new CBORMapper().readValue(body, BookLookupResultDTO[].class);
+		Assertions.assertThat(results).hasSize(1);
+		Assertions.assertThat(results[0].getBook().getTitle()).isEqualTo("My book");
+	}
+	
+	@Test
+	@DisplayName("Should create a book from a Smile body.")
+	public void createBookSmileTest() throws Exception {
+		BookDTO dto = BookDTO.builder().title("My book").author("Author").isbn("123456").build();
+		BDDMockito.given(service.save(Mockito.any(Book.class)))
+				.willReturn(Book.builder().id(10L).title("My book").author("Author").isbn("123456").build());
+		
+		byte[] body = mvc.perform(MockMvcRequestBuilders.post(BOOK_API)
+				.contentType(WireFormatConfig.APPLICATION_SMILE)
+				.accept(WireFormatConfig.APPLICATION_SMILE)
+				.content(new SmileMapper().writeValueAsBytes(dto)))
+			.andExpect(status().isCreated())
+			.andReturn().getResponse().getContentAsByteArray();
+		
+		Assertions.assertThat(new SmileMapper().readValue(body, BookDTO.class).getId()).isEqualTo(10L);
+	}
+	
+	@Test
+	@DisplayName("Should answer JSON when the client accepts anything.")
+	public void getBookDefaultsToJsonTest() throws Exception {
+		BDDMockito.given(service.getDtoById(1L)).willReturn(Optional.of(BookDTO.builder().id(1L).title("My book").build()));
+		
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1")).accept(MediaType.ALL))
+			.andExpect(status().isOk())
+			.andExpect(MockMvcResultMatchers.content().contentType(MediaType.APPLICATION_JSON));
+	}
+	
+	@Test
+	@DisplayName("Throw error if neither ids nor isbns are informed.")
+	public void getBooksWithoutKeysTest() throws Exception {
+		MockHttpServletRequestBuilder content = MockMvcRequestBuilders
+				.get(BOOK_API.concat("/batch"))
+				.accept(MediaType.APPLICATION_JSON);
+		
+		mvc.perform(content)
+			.andExpect(status().isBadRequest());
+	}
 }
@@ -0,0 +1,79 @@
+package org.cursos.libraryapi.resource.controller;
+
+import org.assertj.core.api.Assertions;
+import org.cursos.libraryapi.resource.model.dto.BookDTO;
+import org.cursos.libraryapi.resource.model.entity.BookChange;
+import org.cursos.libraryapi.resource.repository.BookChangeRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {
+		"spring.main.web-application-type=reactive",
+		"spring.datasource.url=jdbc:h2:mem:reactive;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+		"library.r2dbc.url=r2dbc:h2:mem:///reactive;DB_CLOSE_DELAY=-1" })
+public class ReactiveBookApiTest {
+	
+	static String BOOK_API = "/api/books";
+	
+	@Autowired
+	WebTestClient client;
+	
+	@Autowired
+	BookChangeRepository changeRepository;
+	
+	@Test
+	@DisplayName("Should create, read, update and export books over R2DBC.")
+	public void reactiveCrudTest() {
+		BookDTO created = client.post().uri(BOOK_API)
+			.contentType(MediaType.APPLICATION_JSON)
+			.bodyValue(BookDTO.builder().title("My book").author("Author").isbn("reactive-1").build())
+			.exchange()
+			.expectStatus().isCreated()
+			.expectBody(BookDTO.class)
+			.returnResult().getResponseBody();
+		
+		client.post().uri(BOOK_API)
+			.contentType(MediaType.APPLICATION_JSON)
+			.bodyValue(BookDTO.builder().title("My book").author("Author").isbn("reactive-1").build())
+			.exchange()
+			.expectStatus().isBadRequest();
+		
+		client.put().uri(BOOK_API.concat("/" + created.getId()))
+			.contentType(MediaType.APPLICATION_JSON)
+			.bodyValue(BookDTO.builder().title("New title").author("Author").build())
+			.exchange()
+			.expectStatus().isOk();
+		
+		client.get().uri(BOOK_API.concat("/" + created.getId()))
+			.exchange()
+			.expectStatus().isOk()
+			.expectBody()
+			.jsonPath("title").isEqualTo("New title")
+			.jsonPath("version").isEqualTo(1);
+		
+		client.get().uri(BOOK_API.concat("/export"))
+			.accept(MediaType.APPLICATION_NDJSON)
+			.exchange()
+			.expectStatus().isOk()
+			.expectBodyList(BookDTO.class).hasSize(1);
+		
+		client.delete().uri(BOOK_API.concat("/" + created.getId()))
+			.exchange()
+			.expectStatus().isNoContent();
+		
+		Assertions.assertThat(changeRepository.findAll())
+			.filteredOn(change -> change.getBookId().equals(created.getId()))
+			.extracting(BookChange::getType)
+			.containsExactly(BookChange.Type.CREATED, BookChange.Type.UPDATED, BookChange.Type.DELETED);
+	}
+}
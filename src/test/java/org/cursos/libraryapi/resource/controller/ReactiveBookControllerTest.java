@@ -0,0 +1,150 @@
+package org.cursos.libraryapi.resource.controller;
+
+import org.cursos.libraryapi.resource.exception.BusinessException;
+import org.cursos.libraryapi.resource.model.dto.BookDTO;
+import org.cursos.libraryapi.resource.model.entity.Book;
+import org.cursos.libraryapi.resource.services.ReactiveBookService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebFluxTest(ReactiveBookController.class)
+public class ReactiveBookControllerTest {
+	
+	static String BOOK_API = "/api/books";
+	
+	@Autowired
+	WebTestClient client;
+	
+	@MockBean
+	ReactiveBookService service;
+	
+	@Test
+	@DisplayName("Should be able to create a book.")
+	public void createBookTest() {
+		BookDTO dto = BookDTO.builder().title("My book").author("Author").isbn("123456").build();
+		Book book = Book.builder().id(10L).title("My book").author("Author").isbn("123456").build();
+		BDDMockito.given(service.save(Mockito.any(Book.class))).willReturn(Mono.just(book));
+		
+		client.post().uri(BOOK_API)
+			.contentType(MediaType.APPLICATION_JSON)
+			.bodyValue(dto)
+			.exchange()
+			.expectStatus().isCreated()
+			.expectBody()
+			.jsonPath("id").isEqualTo(10)
+			.jsonPath("isbn").isEqualTo("123456");
+	}
+	
+	@Test
+	@DisplayName("Should not be able to create a book with invalid data.")
+	public void createInvalidBookTest() {
+		client.post().uri(BOOK_API)
+			.contentType(MediaType.APPLICATION_JSON)
+			.bodyValue(new BookDTO())
+			.exchange()
+			.expectStatus().isBadRequest()
+			.expectBody()
+			.jsonPath("errors.length()").isEqualTo(3);
+	}
+	
+	@Test
+	@DisplayName("Throw error if exists any book with this isbn.")
+	public void createBookWithDuplcatedIsbn() {
+		BookDTO dto = BookDTO.builder().title("My book").author("Author").isbn("123456").build();
+		BDDMockito.given(service.save(Mockito.any(Book.class)))
+				  .willReturn(Mono.error(new BusinessException("Isbn already exists.")));
+		
+		client.post().uri(BOOK_API)
+			.contentType(MediaType.APPLICATION_JSON)
+			.bodyValue(dto)
+			.exchange()
+			.expectStatus().isBadRequest()
+			.expectBody()
+			.jsonPath("errors[0]").isEqualTo("Isbn already exists.");
+	}
+	
+	@Test
+	@DisplayName("Throw error if book not exists.")
+	public void getBookNotFoundTest() {
+		BDDMockito.given(service.getById(Mockito.anyLong())).willReturn(Mono.empty());
+		
+		client.get().uri(BOOK_API.concat("/1"))
+			.exchange()
+			.expectStatus().isNotFound();
+	}
+	
+	@Test
+	@DisplayName("Should not update a book to an empty title or author.")
+	public void updateInvalidBookTest() {
+		client.put().uri(BOOK_API.concat("/1"))
+			.contentType(MediaType.APPLICATION_JSON)
+			.bodyValue(BookDTO.builder().author("Author").build())
+			.exchange()
+			.expectStatus().isBadRequest()
+			.expectBody()
+			.jsonPath("errors.length()").isEqualTo(1);
+		
+		Mockito.verify(service, Mockito.never()).update(Mockito.any(Book.class));
+	}
+	
+	@Test
+	@DisplayName("Should list books after a cursor with a next token.")
+	public void scrollBooksTest() {
+		BDDMockito.given(service.scroll(null, 2)).willReturn(Flux.just(
+				Book.builder().id(1L).title("A").build(),
+				Book.builder().id(2L).title("B").build()));
+		
+		client.get().uri(BOOK_API.concat("?after=&size=1"))
+			.exchange()
+			.expectStatus().isOk()
+			.expectBody()
+			.jsonPath("content.length()").isEqualTo(1)
+			.jsonPath("content[0].id").isEqualTo(1)
+			.jsonPath("next").isNotEmpty();
+	}
+	
+	@Test
+	@DisplayName("Should reject cursor pages that are empty or too large.")
+	public void scrollInvalidSizeTest() {
+		client.get().uri(BOOK_API.concat("?after=&size=0"))
+			.exchange()
+			.expectStatus().isBadRequest();
+		client.get().uri(BOOK_API.concat("?after=&size=-1"))
+			.exchange()
+			.expectStatus().isBadRequest();
+		client.get().uri(BOOK_API.concat("?after=&size=" + (ReactiveBookController.MAX_PAGE_SIZE + 1)))
+			.exchange()
+			.expectStatus().isBadRequest();
+		
+		Mockito.verify(service, Mockito.never()).scroll(Mockito.any(), Mockito.anyInt());
+	}
+	
+	@Test
+	@DisplayName("Should stream the catalog as ndjson.")
+	public void exportBooksTest() {
+		BDDMockito.given(service.export()).willReturn(Flux.just(
+				Book.builder().id(1L).title("A").build(),
+				Book.builder().id(2L).title("B").build()));
+		
+		client.get().uri(BOOK_API.concat("/export"))
+			.accept(MediaType.APPLICATION_NDJSON)
+			.exchange()
+			.expectStatus().isOk()
+			.expectBodyList(BookDTO.class).hasSize(2);
+	}
+}
@@ -0,0 +1,42 @@
+package org.cursos.libraryapi.resource.exception;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class BusinessExceptionTest {
+	
+	@Test
+	@DisplayName("Should not capture a stack trace.")
+	public void stacklessTest() {
+		BusinessException exception = new BusinessException(ErrorCode.DUPLICATE_ISBN);
+		
+		Assertions.assertThat(exception.getStackTrace()).isEmpty();
+		Assertions.assertThat(exception.getMessage()).isEqualTo("Isbn already exists.");
+		Assertions.assertThat(exception.getCode()).isEqualTo(ErrorCode.DUPLICATE_ISBN);
+	}
+	
+	@Test
+	@DisplayName("Should share one error body per code.")
+	public void sharedBodyTest() throws Exception {
+		ApiErrors first = ApiErrors.of(new BusinessException(ErrorCode.DUPLICATE_ISBN));
+		ApiErrors second = ApiErrors.of(new BusinessException(ErrorCode.DUPLICATE_ISBN));
+		
+		Assertions.assertThat(first).isSameAs(second);
+		Assertions.assertThat(new ObjectMapper().writeValueAsString(first))
+				.isEqualTo("{\"code\":\"DUPLICATE_ISBN\",\"errors\":[\"Isbn already exists.\"]}");
+		Assertions.assertThatThrownBy(() -> first.getErrors().add("other"))
+				.isInstanceOf(UnsupportedOperationException.class);
+	}
+	
+	@Test
+	@DisplayName("Should build a body for an exception without code.")
+	public void uncodedTest() {
+		ApiErrors body = ApiErrors.of(new BusinessException("Some rule."));
+		
+		Assertions.assertThat(body.getCode()).isNull();
+		Assertions.assertThat(body.getErrors()).containsExactly("Some rule.");
+	}
+}
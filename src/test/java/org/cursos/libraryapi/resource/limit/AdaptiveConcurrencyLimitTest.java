@@ -0,0 +1,65 @@
+package org.cursos.libraryapi.resource.limit;
+
+import java.util.concurrent.TimeUnit;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class AdaptiveConcurrencyLimitTest {
+	
+	@Test
+	@DisplayName("Should refuse requests above the limit.")
+	public void refuseAboveLimitTest() {
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 10);
+		
+		Assertions.assertThat(limit.tryAcquire()).isTrue();
+		Assertions.assertThat(limit.tryAcquire()).isTrue();
+		Assertions.assertThat(limit.tryAcquire()).isFalse();
+		
+		limit.release(TimeUnit.MILLISECONDS.toNanos(5));
+		Assertions.assertThat(limit.tryAcquire()).isTrue();
+	}
+	
+	@Test
+	@DisplayName("Should shrink the limit when latency rises and grow it back when it recovers.")
+	public void gradientTest() {
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 2, 100);
+		saturate(limit, TimeUnit.MILLISECONDS.toNanos(10), 50);
+		int steady = limit.getLimit();
+		
+		saturate(limit, TimeUnit.MILLISECONDS.toNanos(100), 20);
+		int congested = limit.getLimit();
+		
+		saturate(limit, TimeUnit.MILLISECONDS.toNanos(10), 50);
+		
+		Assertions.assertThat(congested).isLessThan(steady);
+		Assertions.assertThat(limit.getLimit()).isGreaterThan(congested);
+		Assertions.assertThat(limit.getLimit()).isLessThanOrEqualTo(100);
+	}
+	
+	@Test
+	@DisplayName("Should not grow the limit while mostly idle.")
+	public void idleTest() {
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 2, 100);
+		
+		for(int i = 0; i < 100; i++) {
+			limit.tryAcquire();
+			limit.release(TimeUnit.MILLISECONDS.toNanos(10));
+		}
+		
+		Assertions.assertThat(limit.getLimit()).isEqualTo(20);
+	}
+	
+	private static void saturate(AdaptiveConcurrencyLimit limit, long rttNanos, int rounds) {
+		for(int round = 0; round < rounds; round++) {
+			int acquired = 0;
+			while(limit.tryAcquire()) {
+				acquired++;
+			}
+			for(int i = 0; i < acquired; i++) {
+				limit.release(rttNanos);
+			}
+		}
+	}
+}
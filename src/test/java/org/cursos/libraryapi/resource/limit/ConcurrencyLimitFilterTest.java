@@ -0,0 +1,39 @@
+package org.cursos.libraryapi.resource.limit;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class ConcurrencyLimitFilterTest {
+	
+	@Test
+	@DisplayName("Should shed requests above the concurrency limit.")
+	public void shedRequestTest() throws Exception {
+		ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, 0);
+		MockHttpServletResponse inner = new MockHttpServletResponse();
+		MockHttpServletResponse outer = new MockHttpServletResponse();
+		
+		filter.doFilter(new MockHttpServletRequest(), outer,
+				(request, response) -> filter.doFilter(new MockHttpServletRequest(), inner, (req, res) -> {}));
+		
+		Assertions.assertThat(outer.getStatus()).isEqualTo(200);
+		Assertions.assertThat(inner.getStatus()).isEqualTo(503);
+		Assertions.assertThat(inner.getHeader("Retry-After")).isEqualTo("1");
+	}
+	
+	@Test
+	@DisplayName("Should release the permit after the request completes.")
+	public void releasePermitTest() throws Exception {
+		ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, 0);
+		MockHttpServletResponse first = new MockHttpServletResponse();
+		MockHttpServletResponse second = new MockHttpServletResponse();
+		
+		filter.doFilter(new MockHttpServletRequest(), first, (request, response) -> {});
+		filter.doFilter(new MockHttpServletRequest(), second, (request, response) -> {});
+		
+		Assertions.assertThat(first.getStatus()).isEqualTo(200);
+		Assertions.assertThat(second.getStatus()).isEqualTo(200);
+	}
+}
@@ -0,0 +1,40 @@
+package org.cursos.libraryapi.resource.limit;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+		"library.limits.enabled=true",
+		"library.limits.write.permits-per-second=0.01",
+		"library.limits.write.burst=1" })
+@AutoConfigureMockMvc
+public class LoadSheddingConfigTest {
+	
+	@Autowired
+	MockMvc mvc;
+	
+	@Test
+	@DisplayName("Should rate limit the books API per client.")
+	public void rateLimitTest() throws Exception {
+		mvc.perform(MockMvcRequestBuilders.delete("/api/books/999").header(LoadSheddingFilter.CLIENT_ID, "client"))
+			.andExpect(status().isNotFound());
+		mvc.perform(MockMvcRequestBuilders.delete("/api/books/999").header(LoadSheddingFilter.CLIENT_ID, "client"))
+			.andExpect(status().isTooManyRequests())
+			.andExpect(header().string("Retry-After", "100"));
+		mvc.perform(MockMvcRequestBuilders.get("/api/books/999").header(LoadSheddingFilter.CLIENT_ID, "client"))
+			.andExpect(status().isNotFound());
+	}
+}
@@ -0,0 +1,82 @@
+package org.cursos.libraryapi.resource.limit;
+
+import org.assertj.core.api.Assertions;
+import org.cursos.libraryapi.resource.limit.LoadSheddingFilter.Budget;
+import org.cursos.libraryapi.resource.limit.LoadSheddingFilter.BudgetLimits;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class LoadSheddingFilterTest {
+	
+	MeterRegistry meterRegistry = new SimpleMeterRegistry();
+	
+	@Test
+	@DisplayName("Should answer 429 once a client spent its write budget, while reads and searches still pass.")
+	public void rateLimitTest() throws Exception {
+		LoadSheddingFilter filter = filter(1, 10);
+		
+		Assertions.assertThat(perform(filter, "POST", "/api/books", "client").getStatus()).isEqualTo(200);
+		MockHttpServletResponse limited = perform(filter, "POST", "/api/books", "client");
+		
+		Assertions.assertThat(limited.getStatus()).isEqualTo(429);
+		Assertions.assertThat(limited.getHeader("Retry-After")).isEqualTo("10");
+		Assertions.assertThat(perform(filter, "POST", "/api/books", "other").getStatus()).isEqualTo(200);
+		Assertions.assertThat(perform(filter, "GET", "/api/books/1", "client").getStatus()).isEqualTo(200);
+		Assertions.assertThat(perform(filter, "GET", "/api/books/search", "client").getStatus()).isEqualTo(200);
+		Assertions.assertThat(meterRegistry.get("library.limits.rejected").tag("budget", "write").tag("reason", "rate").counter().count()).isEqualTo(1);
+	}
+	
+	@Test
+	@DisplayName("Should answer 503 above the concurrency limit.")
+	public void concurrencyLimitTest() throws Exception {
+		LoadSheddingFilter filter = filter(100, 1);
+		MockHttpServletResponse inner = new MockHttpServletResponse();
+		MockHttpServletResponse outer = new MockHttpServletResponse();
+		
+		filter.doFilter(request("GET", "/api/books/1", "client"), outer,
+				(request, response) -> filter.doFilter(request("GET", "/api/books/2", "client"), inner, (req, res) -> {}));
+		
+		Assertions.assertThat(outer.getStatus()).isEqualTo(200);
+		Assertions.assertThat(inner.getStatus()).isEqualTo(503);
+		Assertions.assertThat(inner.getHeader("Retry-After")).isEqualTo("1");
+	}
+	
+	@Test
+	@DisplayName("Should charge searches, exports and batch lookups to their own budget.")
+	public void budgetTest() {
+		Assertions.assertThat(LoadSheddingFilter.budgetOf(request("GET", "/api/books/1", null))).isEqualTo(Budget.READ);
+		Assertions.assertThat(LoadSheddingFilter.budgetOf(request("GET", "/api/books/search", null))).isEqualTo(Budget.HEAVY_READ);
+		Assertions.assertThat(LoadSheddingFilter.budgetOf(request("GET", "/api/books/export", null))).isEqualTo(Budget.HEAVY_READ);
+		Assertions.assertThat(LoadSheddingFilter.budgetOf(request("GET", "/api/books/batch", null))).isEqualTo(Budget.HEAVY_READ);
+		Assertions.assertThat(LoadSheddingFilter.budgetOf(request("PUT", "/api/books/1", null))).isEqualTo(Budget.WRITE);
+	}
+	
+	private LoadSheddingFilter filter(int writeBurst, int concurrency) {
+		BudgetLimits read = new BudgetLimits(Budget.READ, 100, 100,
+				new AdaptiveConcurrencyLimit(concurrency, 1, concurrency), meterRegistry);
+		BudgetLimits heavyRead = new BudgetLimits(Budget.HEAVY_READ, 100, 100,
+				new AdaptiveConcurrencyLimit(concurrency, 1, concurrency), meterRegistry);
+		BudgetLimits write = new BudgetLimits(Budget.WRITE, 0.1, writeBurst,
+				new AdaptiveConcurrencyLimit(concurrency, 1, concurrency), meterRegistry);
+		return new LoadSheddingFilter(read, heavyRead, write, 100);
+	}
+	
+	private static MockHttpServletResponse perform(LoadSheddingFilter filter, String method, String uri, String client) throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request(method, uri, client), response, (request, res) -> {});
+		return response;
+	}
+	
+	private static MockHttpServletRequest request(String method, String uri, String client) {
+		MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+		if(client != null) {
+			request.addHeader(LoadSheddingFilter.CLIENT_ID, client);
+		}
+		return request;
+	}
+}
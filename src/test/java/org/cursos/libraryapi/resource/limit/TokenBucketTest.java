@@ -0,0 +1,36 @@
+package org.cursos.libraryapi.resource.limit;
+
+import java.util.concurrent.TimeUnit;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class TokenBucketTest {
+	
+	@Test
+	@DisplayName("Should allow a burst and then refuse until tokens refill.")
+	public void burstTest() {
+		TokenBucket bucket = new TokenBucket(10, 3);
+		long now = 0;
+		
+		Assertions.assertThat(bucket.tryAcquire(now)).isZero();
+		Assertions.assertThat(bucket.tryAcquire(now)).isZero();
+		Assertions.assertThat(bucket.tryAcquire(now)).isZero();
+		Assertions.assertThat(bucket.tryAcquire(now)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+		
+		Assertions.assertThat(bucket.tryAcquire(now + TimeUnit.MILLISECONDS.toNanos(100))).isZero();
+		Assertions.assertThat(bucket.tryAcquire(now + TimeUnit.MILLISECONDS.toNanos(100))).isPositive();
+	}
+	
+	@Test
+	@DisplayName("Should not save up more tokens than the burst while idle.")
+	public void idleTest() {
+		TokenBucket bucket = new TokenBucket(10, 2);
+		long later = TimeUnit.SECONDS.toNanos(60);
+		
+		Assertions.assertThat(bucket.tryAcquire(later)).isZero();
+		Assertions.assertThat(bucket.tryAcquire(later)).isZero();
+		Assertions.assertThat(bucket.tryAcquire(later)).isPositive();
+	}
+}
@@ -0,0 +1,41 @@
+package org.cursos.libraryapi.resource.metrics;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+public class MetricsTest {
+	
+	@Autowired
+	MockMvc mvc;
+	
+	@Test
+	@DisplayName("Should expose the book metrics in prometheus format.")
+	public void prometheusScrapeTest() throws Exception {
+		mvc.perform(MockMvcRequestBuilders.get("/api/books/999"))
+			.andExpect(status().isNotFound());
+		
+		mvc.perform(MockMvcRequestBuilders.get("/actuator/prometheus"))
+			.andExpect(status().isOk())
+			.andExpect(content().string(Matchers.containsString("library_books_service_seconds_count{class=\"org.cursos.libraryapi.resource.services.impl.BookServiceImpl\"")))
+			.andExpect(content().string(Matchers.containsString("library_hibernate_statements_count{method=\"GET\",uri=\"/api/books/{id}\",}")))
+			.andExpect(content().string(Matchers.containsString("spring_data_repository_invocations_seconds_count")));
+	}
+}
@@ -0,0 +1,36 @@
+package org.cursos.libraryapi.resource.model.mapper;
+
+import org.assertj.core.api.Assertions;
+import org.cursos.libraryapi.resource.model.dto.BookDTO;
+import org.cursos.libraryapi.resource.model.entity.Book;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class BookMapperTest {
+	
+	BookMapper mapper = new BookMapper();
+	
+	@Test
+	@DisplayName("Should copy every field of a dto but the version into a book.")
+	public void toEntityTest() {
+		BookDTO dto = BookDTO.builder().id(1L).title("My book").author("Author").isbn("123456").version(7L).build();
+		
+		Book book = mapper.toEntity(dto);
+		
+		Assertions.assertThat(book).isEqualTo(Book.builder().id(1L).title("My book").author("Author").isbn("123456").build());
+	}
+	
+	@Test
+	@DisplayName("Should copy every field of a book into a dto.")
+	public void toDtoTest() {
+		Book book = Book.builder().id(1L).title("My book").author("Author").isbn("123456").version(2L).build();
+		
+		BookDTO dto = mapper.toDto(book);
+		
+		Assertions.assertThat(dto.getId()).isEqualTo(book.getId());
+		Assertions.assertThat(dto.getTitle()).isEqualTo(book.getTitle());
+		Assertions.assertThat(dto.getAuthor()).isEqualTo(book.getAuthor());
+		Assertions.assertThat(dto.getIsbn()).isEqualTo(book.getIsbn());
+		Assertions.assertThat(dto.getVersion()).isEqualTo(book.getVersion());
+	}
+}
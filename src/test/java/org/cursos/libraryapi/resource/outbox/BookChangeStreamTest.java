@@ -0,0 +1,150 @@
+package org.cursos.libraryapi.resource.outbox;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+
+import org.assertj.core.api.Assertions;
+import org.cursos.libraryapi.resource.exception.BusinessException;
+import org.cursos.libraryapi.resource.model.dto.BookChangesDTO;
+import org.cursos.libraryapi.resource.model.dto.BookDTO;
+import org.cursos.libraryapi.resource.model.entity.Book;
+import org.cursos.libraryapi.resource.model.entity.BookChange;
+import org.cursos.libraryapi.resource.repository.BookChangeRepository;
+import org.cursos.libraryapi.resource.services.BookService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+		"library.outbox.poll-interval-ms=20",
+		"spring.datasource.url=jdbc:h2:mem:changes;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE" })
+@AutoConfigureMockMvc
+public class BookChangeStreamTest {
+	
+	static String CHANGES_API = "/api/books/changes";
+	
+	static ObjectMapper MAPPER = new ObjectMapper().registerModule(new JavaTimeModule());
+	
+	@Autowired
+	MockMvc mvc;
+	
+	@Autowired
+	BookService service;
+	
+	@Autowired
+	BookChangeRepository changeRepository;
+	
+	@Autowired
+	ChangeRelay relay;
+	
+	@Test
+	@DisplayName("Should stream create, update and delete in the order they were committed.")
+	public void orderTest() throws Exception {
+		long since = poll("").getNext();
+		
+		mvc.perform(MockMvcRequestBuilders.post("/api/books").contentType(MediaType.APPLICATION_JSON)
+				.content(MAPPER.writeValueAsString(BookDTO.builder().title("My book").author("Author").isbn("cdc-1").build())))
+			.andExpect(status().isCreated());
+		Book book = service.getById(service.getByIsbns(Arrays.asList("cdc-1")).get(0).getId()).get();
+		book.setTitle("New title");
+		book = service.update(book);
+		service.delete(book);
+		
+		BookChangesDTO changes = waitFor(since, 3);
+		
+		Assertions.assertThat(changes.getContent()).extracting("type")
+				.containsExactly(BookChange.Type.CREATED, BookChange.Type.UPDATED, BookChange.Type.DELETED);
+		Assertions.assertThat(changes.getContent()).extracting("seq")
+				.containsExactly(since + 1, since + 2, since + 3);
+		Assertions.assertThat(changes.getContent().get(1).getTitle()).isEqualTo("New title");
+		Assertions.assertThat(changes.getContent().get(1).getVersion()).isEqualTo(1L);
+		Assertions.assertThat(changes.getNext()).isEqualTo(since + 3);
+	}
+	
+	@Test
+	@DisplayName("Should hold a long-poll open until a change is published.")
+	public void longPollTest() throws Exception {
+		long since = poll("").getNext();
+		MvcResult pending = mvc.perform(MockMvcRequestBuilders.get(CHANGES_API + "?since=" + since + "&wait=10"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		
+		service.save(Book.builder().title("My book").author("Author").isbn("cdc-2").build());
+		
+		String json = mvc.perform(MockMvcRequestBuilders.asyncDispatch(pending))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		BookChangesDTO changes = MAPPER.readValue(json, BookChangesDTO.class);
+		Assertions.assertThat(changes.getContent()).extracting("isbn").containsExactly("cdc-2");
+		Assertions.assertThat(changes.getNext()).isEqualTo(since + 1);
+	}
+	
+	@Test
+	@DisplayName("Should not publish the change of a rolled back write.")
+	public void rollbackTest() throws Exception {
+		long since = poll("").getNext();
+		service.save(Book.builder().title("My book").author("Author").isbn("cdc-3").build());
+		since = waitFor(since, 1).getNext();
+		
+		Throwable exception = Assertions.catchThrowable(() ->
+				service.save(Book.builder().title("Again").author("Author").isbn("cdc-3").build()));
+		
+		Assertions.assertThat(exception).isInstanceOf(BusinessException.class);
+		Thread.sleep(200);
+		Assertions.assertThat(poll("?since=" + since).getContent()).isEmpty();
+	}
+	
+	@Test
+	@DisplayName("Should answer 410 when the changes after since were purged.")
+	public void purgedTest() throws Exception {
+		long since = poll("").getNext();
+		service.save(Book.builder().title("My book").author("Author").isbn("cdc-4").build());
+		service.save(Book.builder().title("My book").author("Author").isbn("cdc-5").build());
+		long last = waitFor(since, 2).getNext();
+		changeRepository.findAll().forEach(change -> {
+			change.setCreatedAt(Instant.now().minus(365, ChronoUnit.DAYS));
+			changeRepository.save(change);
+		});
+		
+		relay.purge();
+		
+		mvc.perform(MockMvcRequestBuilders.get(CHANGES_API + "?since=" + (last - 2)))
+			.andExpect(status().isGone());
+		Assertions.assertThat(poll("?since=" + (last - 1)).getContent()).extracting("isbn").containsExactly("cdc-5");
+	}
+	
+	private BookChangesDTO waitFor(long since, int count) throws Exception {
+		BookChangesDTO changes = poll("?since=" + since + "&wait=5");
+		while(changes.getContent().size() < count) {
+			Thread.sleep(20);
+			changes = poll("?since=" + since + "&wait=5");
+		}
+		return changes;
+	}
+	
+	private BookChangesDTO poll(String query) throws Exception {
+		MvcResult pending = mvc.perform(MockMvcRequestBuilders.get(CHANGES_API + query)).andReturn();
+		String json = mvc.perform(MockMvcRequestBuilders.asyncDispatch(pending))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return MAPPER.readValue(json, BookChangesDTO.class);
+	}
+}
@@ -0,0 +1,124 @@
+package org.cursos.libraryapi.resource.replica;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.assertj.core.api.Assertions;
+import org.cursos.libraryapi.resource.limit.LoadSheddingFilter;
+import org.cursos.libraryapi.resource.model.dto.BookDTO;
+import org.cursos.libraryapi.resource.model.entity.Book;
+import org.cursos.libraryapi.resource.services.BookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+
+/**
+ * Three H2 databases stand in for the primary and two replicas. Nothing
+ * replicates between them, so whichever database answered shows in the
+ * title that comes back.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+		"spring.datasource.url=" + ReplicaRoutingTest.PRIMARY,
+		"library.replicas.enabled=true",
+		"library.replicas.urls=" + ReplicaRoutingTest.REPLICA_0 + "," + ReplicaRoutingTest.REPLICA_1,
+		"library.replicas.pool-size=2",
+		"library.replicas.read-your-writes-ms=60000" })
+@AutoConfigureMockMvc
+public class ReplicaRoutingTest {
+	
+	static final String PRIMARY = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+	
+	static final String REPLICA_0 = "jdbc:h2:mem:routing-replica-0;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+	
+	static final String REPLICA_1 = "jdbc:h2:mem:routing-replica-1;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+	
+	static String BOOK_API = "/api/books";
+	
+	@Autowired
+	MockMvc mvc;
+	
+	@Autowired
+	BookService service;
+	
+	@BeforeEach
+	public void copySchema() throws SQLException {
+		String script = "target/routing-schema.sql";
+		execute(PRIMARY, "SCRIPT NODATA TO '" + script + "'");
+		execute(REPLICA_0, "DROP ALL OBJECTS", "RUNSCRIPT FROM '" + script + "'");
+		execute(REPLICA_1, "DROP ALL OBJECTS", "RUNSCRIPT FROM '" + script + "'");
+	}
+	
+	@Test
+	@DisplayName("Should balance read-only lookups across the replicas.")
+	public void balanceReadsTest() throws Exception {
+		Book book = service.save(Book.builder().title("Primary").author("Author").isbn("replica-1").build());
+		seed(REPLICA_0, book.getId(), "Replica 0");
+		seed(REPLICA_1, book.getId(), "Replica 1");
+		
+		Set<String> titles = new HashSet<>();
+		for(int i = 0; i < 2; i++) {
+			String json = mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/batch")).param("ids", book.getId().toString())
+						.header(LoadSheddingFilter.CLIENT_ID, "reader"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+			titles.add(JsonPath.read(json, "$[0].book.title"));
+		}
+		
+		Assertions.assertThat(titles).containsExactlyInAnyOrder("Replica 0", "Replica 1");
+	}
+	
+	@Test
+	@DisplayName("Should write to the primary and read it back there for the same client only.")
+	public void readYourWritesTest() throws Exception {
+		String json = new ObjectMapper().writeValueAsString(
+				BookDTO.builder().title("Fresh").author("Author").isbn("replica-2").build());
+		String created = mvc.perform(MockMvcRequestBuilders.post(BOOK_API).header(LoadSheddingFilter.CLIENT_ID, "writer")
+					.contentType(MediaType.APPLICATION_JSON).content(json))
+			.andExpect(status().isCreated())
+			.andReturn().getResponse().getContentAsString();
+		Number id = JsonPath.read(created, "$.id");
+		
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/batch")).param("ids", id.toString())
+					.header(LoadSheddingFilter.CLIENT_ID, "writer"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("[0].book.title").value("Fresh"));
+		mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/batch")).param("ids", id.toString())
+					.header(LoadSheddingFilter.CLIENT_ID, "reader"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("[0].status").value(404));
+	}
+	
+	private static void seed(String url, Long id, String title) throws SQLException {
+		execute(url, "INSERT INTO book (id, title, author, isbn, version) VALUES (" + id + ", '" + title + "', 'Author', 'replica-" + id + "', 0)");
+	}
+	
+	private static void execute(String url, String... sql) throws SQLException {
+		try (Connection connection = DriverManager.getConnection(url, "sa", "");
+				Statement statement = connection.createStatement()) {
+			for(String command : sql) {
+				statement.execute(command);
+			}
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package org.cursos.libraryapi.resource.repository;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.cursos.libraryapi.resource.model.entity.BookChange;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+public class BookChangeRepositoryTest {
+	
+	@Autowired
+	TestEntityManager entityManager;
+	
+	@Autowired
+	BookChangeRepository repository;
+	
+	@Test
+	@DisplayName("Should return the unpublished changes of a book in version order whatever their ids.")
+	public void findUnpublishedOrderTest() {
+		// ids handed out by another instance's sequence block can be the reverse of the commit order
+		entityManager.persist(change(BookChange.Type.DELETED, 1L, 1L));
+		entityManager.persist(change(BookChange.Type.UPDATED, 1L, 1L));
+		entityManager.persist(change(BookChange.Type.CREATED, 1L, 0L));
+		entityManager.persist(change(BookChange.Type.CREATED, 2L, 0L));
+		
+		List<BookChange> changes = repository.findUnpublished(PageRequest.of(0, 10));
+		
+		Assertions.assertThat(changes).extracting(BookChange::getBookId, BookChange::getType).containsExactly(
+				Assertions.tuple(1L, BookChange.Type.CREATED),
+				Assertions.tuple(1L, BookChange.Type.UPDATED),
+				Assertions.tuple(1L, BookChange.Type.DELETED),
+				Assertions.tuple(2L, BookChange.Type.CREATED));
+	}
+	
+	private static BookChange change(BookChange.Type type, Long bookId, Long version) {
+		return BookChange.builder().type(type).bookId(bookId).version(version).createdAt(Instant.now()).build();
+	}
+}
@@ -1,8 +1,14 @@
 package org.cursos.libraryapi.resource.repository;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 import org.assertj.core.api.Assertions;
+import org.cursos.libraryapi.resource.model.dto.BookDTO;
 import org.cursos.libraryapi.resource.model.entity.Book;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -10,6 +16,12 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
@@ -79,4 +91,118 @@ public class BookRepositoryTest {
 		
 		Assertions.assertThat(deletedBook).isNull();
 	}
+	
+	@Test
+	@DisplayName("Should find books by title prefix.")
+	public void findByTitlePrefixTest() {
+		entityManager.persist(Book.builder().author("test").title("Clean Code").isbn("1").build());
+		entityManager.persist(Book.builder().author("test").title("Clean Architecture").isbn("2").build());
+		entityManager.persist(Book.builder().author("test").title("Refactoring").isbn("3").build());
+		
+		Example<Book> example = Example.of(Book.builder().title("Clean").build(), ExampleMatcher
+				.matching()
+				.withIgnoreNullValues()
+				.withMatcher("title", match -> match.startsWith()));
+		
+		Page<Book> result = repository.findAll(example, PageRequest.of(0, 10));
+		
+		Assertions.assertThat(result.getTotalElements()).isEqualTo(2);
+	}
+	
+	@Test
+	@DisplayName("Should seek the next books by title and id.")
+	public void findAfterTitleTest() {
+		Book first = entityManager.persist(Book.builder().author("test").title("A").isbn("1").build());
+		Book second = entityManager.persist(Book.builder().author("test").title("A").isbn("2").build());
+		Book third = entityManager.persist(Book.builder().author("test").title("B").isbn("3").build());
+		
+		Slice<BookDTO> result = repository.findDtosAfterTitle(first.getTitle(), first.getId(), PageRequest.of(0, 1));
+		
+		Assertions.assertThat(result.getContent()).extracting(BookDTO::getId).containsExactly(second.getId());
+		Assertions.assertThat(result.hasNext()).isTrue();
+		Assertions.assertThat(repository.findDtosAfterTitle(second.getTitle(), second.getId(), PageRequest.of(0, 10)).getContent())
+				.extracting(BookDTO::getId).containsExactly(third.getId());
+	}
+	
+	@Test
+	@DisplayName("Should seek deep title pages on the title index instead of scanning up to them.")
+	public void findAfterTitlePlanTest() {
+		entityManager.getEntityManager()
+				.createNativeQuery("insert into book (id, title, author, isbn, version) "
+						+ "select x, 'Title ' || lpad(x, 6, '0'), 'test', 'plan-' || x, 0 from system_range(1, 20000)")
+				.executeUpdate();
+		
+		// the predicate of findDtosAfterTitle, 15000 rows deep
+		String plan = (String) entityManager.getEntityManager()
+				.createNativeQuery("explain analyze select b.id from book b "
+						+ "where b.title >= 'Title 015000' and (b.title > 'Title 015000' or b.id > 15000) "
+						+ "order by b.title asc, b.id asc fetch first 21 rows only")
+				.getSingleResult();
+		
+		Matcher scanCount = Pattern.compile("scanCount: (\\d+)").matcher(plan);
+		Assertions.assertThat(scanCount.find()).isTrue();
+		Assertions.assertThat(Integer.parseInt(scanCount.group(1))).isLessThan(100);
+		Assertions.assertThat(repository.findDtosAfterTitle("Title 015000", 15000L, PageRequest.of(0, 2)).getContent())
+				.extracting(BookDTO::getTitle).containsExactly("Title 015001", "Title 015002");
+	}
+	
+	@Test
+	@DisplayName("Should return only the existing isbns of a list.")
+	public void findExistingIsbnsTest() {
+		entityManager.persist(Book.builder().author("test").title("test").isbn("1").build());
+		entityManager.persist(Book.builder().author("test").title("test").isbn("2").build());
+		
+		List<String> isbns = repository.findExistingIsbns(Arrays.asList("1", "3"));
+		
+		Assertions.assertThat(isbns).containsExactly("1");
+	}
+	
+	@Test
+	@DisplayName("Should stream all books ordered by id.")
+	public void streamAllTest() {
+		Book first = entityManager.persist(Book.builder().author("test").title("test").isbn("1").build());
+		Book second = entityManager.persist(Book.builder().author("test").title("test").isbn("2").build());
+		
+		try (Stream<Book> books = repository.streamAll()) {
+			Assertions.assertThat(books).containsExactly(first, second);
+		}
+	}
+	
+	@Test
+	@DisplayName("Should not store two books with the same isbn.")
+	public void uniqueIsbnTest() {
+		entityManager.persist(Book.builder().author("test").title("test").isbn("1").build());
+		
+		Throwable exception = Assertions.catchThrowable(() -> 
+			repository.saveAndFlush(Book.builder().author("test").title("other").isbn("1").build()));
+		
+		Assertions.assertThat(exception).isInstanceOf(DataIntegrityViolationException.class);
+	}
+	
+	@Test
+	@DisplayName("Should increment the version of a book on update.")
+	public void versionIncrementTest() {
+		Book book = entityManager.persistFlushFind(Book.builder().author("test").title("test").isbn("1").build());
+		Assertions.assertThat(book.getVersion()).isEqualTo(0L);
+		
+		book.setTitle("other");
+		repository.saveAndFlush(book);
+		
+		Assertions.assertThat(book.getVersion()).isEqualTo(1L);
+	}
+	
+	@Test
+	@DisplayName("Should read a book into a dto without managing it.")
+	public void findDtoByIdTest() {
+		Book book = entityManager.persistFlushFind(Book.builder().author("test").title("test").isbn("1").build());
+		entityManager.clear();
+		
+		Optional<BookDTO> dto = repository.findDtoById(book.getId());
+		
+		Assertions.assertThat(dto).isPresent();
+		Assertions.assertThat(dto.get().getIsbn()).isEqualTo("1");
+		Assertions.assertThat(dto.get().getVersion()).isEqualTo(0L);
+		Assertions.assertThat(entityManager.getEntityManager().contains(book)).isFalse();
+		Assertions.assertThat(repository.findDtosByIsbnIn(Arrays.asList("1", "2"))).extracting(BookDTO::getId).containsExactly(book.getId());
+	}
 }
@@ -0,0 +1,30 @@
+package org.cursos.libraryapi.resource.search;
+
+import org.cursos.libraryapi.resource.services.BookService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+public class ReindexRunnerTest {
+	
+	BookService service = Mockito.mock(BookService.class);
+	
+	@Test
+	@DisplayName("Should rebuild the index at startup against an in-memory database.")
+	public void inMemoryTest() throws Exception {
+		new ReindexRunner(service, false, "jdbc:h2:mem:library;DB_CLOSE_DELAY=-1").run(null);
+		new ReindexRunner(service, false, "").run(null);
+		
+		Mockito.verify(service, Mockito.times(2)).reindex();
+	}
+	
+	@Test
+	@DisplayName("Should keep the index of a persistent database unless asked to rebuild it.")
+	public void persistentTest() throws Exception {
+		new ReindexRunner(service, false, "jdbc:h2:file:./data/library").run(null);
+		Mockito.verify(service, Mockito.never()).reindex();
+		
+		new ReindexRunner(service, true, "jdbc:h2:file:./data/library").run(null);
+		Mockito.verify(service).reindex();
+	}
+}
@@ -0,0 +1,40 @@
+package org.cursos.libraryapi.resource.service;
+
+import org.assertj.core.api.Assertions;
+import org.cursos.libraryapi.resource.model.entity.Book;
+import org.cursos.libraryapi.resource.services.BookService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest
+public class BookSearchTest {
+	
+	@Autowired
+	BookService service;
+	
+	@Test
+	@DisplayName("Should rank books matching whole and partial words of title and author.")
+	public void searchBooksTest() throws Exception {
+		Book cleanCode = service.save(Book.builder().title("Clean Code").author("Robert Martin").isbn("search-1").build());
+		Book cleanArchitecture = service.save(Book.builder().title("Clean Architecture").author("Robert Martin").isbn("search-2").build());
+		service.save(Book.builder().title("Refactoring").author("Martin Fowler").isbn("search-3").build());
+		
+		Page<Book> partial = service.search("clea arch", PageRequest.of(0, 10));
+		Page<Book> author = service.search("robert", PageRequest.of(0, 10));
+		
+		Assertions.assertThat(partial.getContent()).containsExactly(cleanArchitecture);
+		Assertions.assertThat(author.getContent()).containsExactlyInAnyOrder(cleanCode, cleanArchitecture);
+		
+		service.reindex();
+		Assertions.assertThat(service.search("martin", PageRequest.of(0, 10)).getTotalElements()).isEqualTo(3);
+	}
+}
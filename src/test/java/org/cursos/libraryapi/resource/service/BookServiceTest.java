@@ -1,10 +1,18 @@
 package org.cursos.libraryapi.resource.service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.assertj.core.api.Assertions;
+import org.cursos.libraryapi.resource.cache.IsbnBloomFilter;
 import org.cursos.libraryapi.resource.exception.BusinessException;
+import org.cursos.libraryapi.resource.model.dto.BookDTO;
 import org.cursos.libraryapi.resource.model.entity.Book;
+import org.cursos.libraryapi.resource.model.entity.BookChange;
+import org.cursos.libraryapi.resource.repository.BookChangeRepository;
 import org.cursos.libraryapi.resource.repository.BookRepository;
 import org.cursos.libraryapi.resource.services.BookService;
 import org.cursos.libraryapi.resource.services.impl.BookServiceImpl;
@@ -14,6 +22,15 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
@@ -26,9 +43,12 @@ public class BookServiceTest {
 	@MockBean
 	BookRepository repository;
 	
+	@MockBean
+	BookChangeRepository changeRepository;
+	
 	@BeforeEach
 	public void setUp() {
-		this.service = new BookServiceImpl(repository);
+		this.service = new BookServiceImpl(repository, changeRepository, new IsbnBloomFilter(1000, 0.01));
 	}
 	
 	@Test
@@ -45,6 +65,8 @@ public class BookServiceTest {
 		Assertions.assertThat(savedBook.getIsbn()).isEqualTo("123456");
 		Assertions.assertThat(savedBook.getAuthor()).isEqualTo("Author");
 		Assertions.assertThat(savedBook.getTitle()).isEqualTo("My book");
+		Mockito.verify(changeRepository).save(Mockito.argThat(change ->
+				change.getType() == BookChange.Type.CREATED && change.getBookId().equals(10L)));
 	}
 	
 	@Test
@@ -59,6 +81,7 @@ public class BookServiceTest {
 					.hasMessage("Isbn already exists.");
 		
 		Mockito.verify(repository, Mockito.never()).save(book);
+		Mockito.verify(changeRepository, Mockito.never()).save(Mockito.any());
 	}
 	
 	@Test
@@ -96,6 +119,8 @@ public class BookServiceTest {
 		org.junit.jupiter.api.Assertions.assertDoesNotThrow(() -> service.delete(book));
 		
 		Mockito.verify(repository, Mockito.times(1)).delete(book);
+		Mockito.verify(changeRepository).save(Mockito.argThat(change ->
+				change.getType() == BookChange.Type.DELETED && change.getBookId().equals(10L)));
 	}
 	
 	@Test
@@ -123,6 +148,8 @@ public class BookServiceTest {
 		Assertions.assertThat(book.getTitle()).isEqualTo(updatedBook.getTitle());
 		Assertions.assertThat(book.getAuthor()).isEqualTo(updatedBook.getAuthor());
 		Assertions.assertThat(book.getIsbn()).isEqualTo(updatedBook.getIsbn());	
+		Mockito.verify(changeRepository).save(Mockito.argThat(change ->
+				change.getType() == BookChange.Type.UPDATED && change.getTitle().equals("My book")));
 	}
 	
 	@Test
@@ -135,5 +162,167 @@ public class BookServiceTest {
 		Mockito.verify(repository, Mockito.never()).save(book);
 	}
 	
+	@Test
+	@DisplayName("Should apply a batch of updates to the loaded books.")
+	public void updateAllTest() {
+		Book stored = Book.builder().id(1L).title("Old").author("Old").isbn("123").build();
+		Mockito.when(repository.findAllById(Mockito.anyIterable())).thenReturn(Arrays.asList(stored));
+		
+		service.updateAll(Arrays.asList(
+				Book.builder().id(1L).title("New").author("Author").build(),
+				Book.builder().id(2L).title("Deleted").author("Author").build()));
+		
+		Assertions.assertThat(stored.getTitle()).isEqualTo("New");
+		Assertions.assertThat(stored.getAuthor()).isEqualTo("Author");
+		Assertions.assertThat(stored.getIsbn()).isEqualTo("123");
+	}
+	
+	@Test
+	@DisplayName("Should be able to filter books by properties.")
+	@SuppressWarnings("unchecked")
+	public void findBookTest() {
+		Book book = Book.builder().id(1L).title("My book").author("Author").isbn("123456").build();
+		PageRequest pageRequest = PageRequest.of(0, 10);
+		List<Book> list = Arrays.asList(book);
+		Page<Book> page = new PageImpl<Book>(list, pageRequest, 1);
+		Mockito.when(repository.findAll(Mockito.any(Example.class), Mockito.any(Pageable.class)))
+				.thenReturn(page);
+		
+		Page<Book> result = service.find(book, pageRequest);
+		
+		Assertions.assertThat(result.getTotalElements()).isEqualTo(1);
+		Assertions.assertThat(result.getContent()).isEqualTo(list);
+		Assertions.assertThat(result.getPageable().getPageNumber()).isEqualTo(0);
+		Assertions.assertThat(result.getPageable().getPageSize()).isEqualTo(10);
+	}
+	
+	@Test
+	@DisplayName("Should seek by id when listing after a cursor.")
+	public void scrollBooksByIdTest() {
+		Book after = Book.builder().id(5L).build();
+		Slice<BookDTO> slice = new SliceImpl<BookDTO>(Arrays.asList(BookDTO.builder().id(6L).build()));
+		Mockito.when(repository.findDtosAfterId(Mockito.eq(5L), Mockito.any(Pageable.class)))
+				.thenReturn(slice);
+		
+		Slice<BookDTO> result = service.scroll(after, PageRequest.of(10, 20));
+		
+		Assertions.assertThat(result).isSameAs(slice);
+		Mockito.verify(repository).findDtosAfterId(5L, PageRequest.of(0, 20));
+	}
+	
+	@Test
+	@DisplayName("Should seek by title and id when listing sorted by title.")
+	public void scrollBooksByTitleTest() {
+		Book after = Book.builder().id(5L).title("My book").build();
+		Slice<BookDTO> slice = new SliceImpl<BookDTO>(Arrays.asList(BookDTO.builder().id(3L).title("Other book").build()));
+		Mockito.when(repository.findDtosAfterTitle(Mockito.eq("My book"), Mockito.eq(5L), Mockito.any(Pageable.class)))
+				.thenReturn(slice);
+		
+		Slice<BookDTO> result = service.scroll(after, PageRequest.of(0, 20, Sort.by("title")));
+		
+		Assertions.assertThat(result).isSameAs(slice);
+	}
+	
+	@Test
+	@DisplayName("Should save a chunk of books skipping existing isbns.")
+	public void saveAllBooksTest() {
+		Book existing = Book.builder().title("My book").author("Author").isbn("1").build();
+		Book fresh = Book.builder().title("My book").author("Author").isbn("2").build();
+		Book repeated = Book.builder().title("My book").author("Author").isbn("2").build();
+		Mockito.when(repository.findExistingIsbns(Mockito.anyCollection())).thenReturn(Arrays.asList("1"));
+		
+		List<Book> result = service.saveAll(Arrays.asList(existing, fresh, repeated));
+		
+		Assertions.assertThat(result).containsExactly(null, fresh, null);
+		Mockito.verify(repository, Mockito.times(1)).findExistingIsbns(Mockito.anyCollection());
+		Mockito.verify(repository).saveAll(Arrays.asList(fresh));
+		Mockito.verify(changeRepository).saveAll(Mockito.argThat(changes ->
+				changes.iterator().next().getIsbn().equals("2")));
+	}
+	
+	@Test
+	@DisplayName("Should reject the chunk and check every isbn on retry when a concurrent writer takes one.")
+	public void saveAllConcurrentDuplicateTest() {
+		IsbnBloomFilter isbnFilter = new IsbnBloomFilter(1000, 0.01);
+		isbnFilter.markReady();
+		this.service = new BookServiceImpl(repository, changeRepository, isbnFilter);
+		Book book = Book.builder().title("My book").author("Author").isbn("1").build();
+		Mockito.doThrow(new DataIntegrityViolationException("idx_book_isbn")).when(repository).flush();
+		
+		Throwable exception = Assertions.catchThrowable(() -> service.saveAll(Arrays.asList(book)));
+		
+		Assertions.assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Isbn already exists.");
+		Assertions.assertThat(isbnFilter.mightContain("1")).isTrue();
+		Mockito.verify(changeRepository, Mockito.never()).saveAll(Mockito.anyList());
+	}
+	
+	@Test
+	@DisplayName("Should hand every book of the catalog to the export consumer.")
+	public void exportBooksTest() {
+		Book first = Book.builder().id(1L).build();
+		Book second = Book.builder().id(2L).build();
+		Mockito.when(repository.streamAll()).thenReturn(Stream.of(first, second));
+		List<Book> exported = new ArrayList<>();
+		
+		service.export(exported::add);
+		
+		Assertions.assertThat(exported).containsExactly(first, second);
+	}
+	
+	@Test
+	@DisplayName("Should skip the isbn lookup when the filter knows the isbn is new.")
+	public void saveBookSkippingIsbnLookupTest() {
+		IsbnBloomFilter isbnFilter = new IsbnBloomFilter(1000, 0.01);
+		isbnFilter.markReady();
+		this.service = new BookServiceImpl(repository, changeRepository, isbnFilter);
+		Book book = Book.builder().title("My book").author("Author").isbn("123456").build();
+		Mockito.when(repository.save(book)).thenReturn(book);
+		
+		service.save(book);
+		
+		Mockito.verify(repository, Mockito.never()).existsByIsbn(Mockito.anyString());
+		Assertions.assertThat(isbnFilter.mightContain("123456")).isTrue();
+	}
+	
+	@Test
+	@DisplayName("Should not save a book when a concurrent insert took its isbn.")
+	public void saveBookWithConcurrentDuplicatedIsbnTest() {
+		Book book = Book.builder().title("My book").author("Author").isbn("123456").build();
+		Mockito.when(repository.existsByIsbn(Mockito.anyString())).thenReturn(false);
+		Mockito.when(repository.save(book)).thenThrow(new DataIntegrityViolationException("idx_book_isbn"));
+		
+		Throwable exception = Assertions.catchThrowable( () -> service.save(book));
+		
+		Assertions.assertThat(exception)
+					.isInstanceOf(BusinessException.class)
+					.hasMessage("Isbn already exists.");
+	}
+	
+	@Test
+	@DisplayName("Should find many books by isbn in request order.")
+	public void getBooksByIsbnsTest() {
+		BookDTO first = BookDTO.builder().id(1L).isbn("1").build();
+		BookDTO second = BookDTO.builder().id(2L).isbn("2").build();
+		Mockito.when(repository.findDtosByIsbnIn(Mockito.anyCollection())).thenReturn(Arrays.asList(first, second));
+		
+		List<BookDTO> books = service.getByIsbns(Arrays.asList("2", "3", "1", "2"));
+		
+		Assertions.assertThat(books).containsExactly(second, null, first, second);
+		Mockito.verify(repository, Mockito.times(1)).findDtosByIsbnIn(Arrays.asList("2", "3", "1"));
+	}
 	
+	@Test
+	@DisplayName("Should split large id lookups in chunks.")
+	public void getBooksByIdsInChunksTest() {
+		List<Long> ids = new ArrayList<>();
+		for(long id = 1; id <= 1200; id++) {
+			ids.add(id);
+		}
+		Mockito.when(repository.findDtosByIdIn(Mockito.anyCollection())).thenReturn(new ArrayList<>());
+		
+		List<BookDTO> books = service.getByIds(ids);
+		
+		Assertions.assertThat(books).hasSize(1200).containsOnlyNulls();
+		Mockito.verify(repository, Mockito.times(3)).findDtosByIdIn(Mockito.anyCollection());
+	}
 }
@@ -0,0 +1,97 @@
+package org.cursos.libraryapi.resource.service;
+
+import org.cursos.libraryapi.resource.exception.BusinessException;
+import org.cursos.libraryapi.resource.exception.ErrorCode;
+import org.cursos.libraryapi.resource.model.entity.Book;
+import org.cursos.libraryapi.resource.repository.ReactiveBookRepository;
+import org.cursos.libraryapi.resource.services.BookService;
+import org.cursos.libraryapi.resource.services.ReactiveBookService;
+import org.cursos.libraryapi.resource.services.impl.ReactiveBookServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import reactor.test.StepVerifier;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class ReactiveBookServiceTest {
+	
+	ReactiveBookService service;
+	
+	@MockBean
+	ReactiveBookRepository repository;
+	
+	@MockBean
+	BookService bookService;
+	
+	@BeforeEach
+	public void setUp() {
+		this.service = new ReactiveBookServiceImpl(repository, bookService);
+	}
+	
+	@Test
+	@DisplayName("Should be able to save a book.")
+	public void saveBookTest() {
+		Book book = Book.builder().title("My book").author("Author").isbn("123456").build();
+		Mockito.when(bookService.save(book))
+				.thenReturn(Book.builder().id(10L).title("My book").author("Author").isbn("123456").build());
+		
+		StepVerifier.create(service.save(book))
+			.expectNextMatches(saved -> saved.getId() == 10L)
+			.verifyComplete();
+	}
+	
+	@Test
+	@DisplayName("Should not save a book with duplicated isbn.")
+	public void saveBookWithDuplicatedIsbnTest() {
+		Book book = Book.builder().title("My book").author("Author").isbn("123456").build();
+		Mockito.when(bookService.save(book)).thenThrow(new BusinessException(ErrorCode.DUPLICATE_ISBN));
+		
+		StepVerifier.create(service.save(book))
+			.expectErrorMatches(e -> e instanceof BusinessException && e.getMessage().equals("Isbn already exists."))
+			.verify();
+	}
+	
+	@Test
+	@DisplayName("Should update and delete through the servlet write path.")
+	public void writeThroughBookServiceTest() {
+		Book book = Book.builder().id(10L).title("New title").author("Author").isbn("123456").version(0L).build();
+		Book updated = Book.builder().id(10L).title("New title").author("Author").isbn("123456").version(1L).build();
+		Mockito.when(bookService.update(book)).thenReturn(updated);
+		
+		StepVerifier.create(service.update(book))
+			.expectNext(updated)
+			.verifyComplete();
+		StepVerifier.create(service.delete(book))
+			.verifyComplete();
+		
+		Mockito.verify(bookService).delete(book);
+	}
+	
+	@Test
+	@DisplayName("Should fail an update made from a stale version.")
+	public void updateStaleBookTest() {
+		Book book = Book.builder().id(10L).title("New title").version(0L).build();
+		Mockito.when(bookService.update(book)).thenThrow(new ObjectOptimisticLockingFailureException(Book.class, 10L));
+		
+		StepVerifier.create(service.update(book))
+			.expectError(OptimisticLockingFailureException.class)
+			.verify();
+	}
+	
+	@Test
+	@DisplayName("Should not be able to update a book with non-existing id.")
+	public void updateInvalidBookTest() {
+		StepVerifier.create(service.update(new Book()))
+			.expectError(IllegalArgumentException.class)
+			.verify();
+	}
+}
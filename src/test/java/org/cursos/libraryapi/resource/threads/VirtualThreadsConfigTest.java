@@ -0,0 +1,48 @@
+package org.cursos.libraryapi.resource.threads;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = "library.threads.virtual=true")
+public class VirtualThreadsConfigTest {
+	
+	@Autowired
+	TestRestTemplate restTemplate;
+	
+	@Autowired
+	ApplicationContext context;
+	
+	@Autowired
+	HikariDataSource dataSource;
+	
+	@Test
+	@DisplayName("Should serve requests on virtual threads.")
+	public void virtualThreadsTest() {
+		ResponseEntity<String> response = restTemplate.getForEntity("/api/books/999", String.class);
+		
+		Assertions.assertThat(context.containsBean("virtualThreadsProtocolHandlerCustomizer")).isTrue();
+		Assertions.assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+	}
+	
+	@Test
+	@DisplayName("Should bound the connection pool and its acquire timeout.")
+	public void poolSizeTest() {
+		Assertions.assertThat(dataSource.getMaximumPoolSize()).isEqualTo(20);
+		Assertions.assertThat(dataSource.getConnectionTimeout()).isEqualTo(3000);
+	}
+}
@@ -0,0 +1,48 @@
+package org.cursos.libraryapi.resource.threads;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+		"library.threads.virtual=true",
+		"spring.datasource.url=" + VirtualThreadsReplicaTest.URL,
+		"library.replicas.enabled=true",
+		"library.replicas.urls=" + VirtualThreadsReplicaTest.URL,
+		"library.replicas.pool-size=2" })
+public class VirtualThreadsReplicaTest {
+	
+	static final String URL = "jdbc:h2:mem:virtual-replicas;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+	
+	@Autowired
+	DataSource dataSource;
+	
+	@Test
+	@DisplayName("Should bound the primary and replica pools behind the routing datasource.")
+	public void replicaPoolsTest() {
+		AbstractRoutingDataSource routing = (AbstractRoutingDataSource) ((LazyConnectionDataSourceProxy) dataSource).getTargetDataSource();
+		Map<Object, DataSource> pools = routing.getResolvedDataSources();
+		HikariDataSource primary = (HikariDataSource) pools.get("primary");
+		HikariDataSource replica = (HikariDataSource) pools.get("replica-0");
+		
+		Assertions.assertThat(primary.getMaximumPoolSize()).isEqualTo(20);
+		Assertions.assertThat(primary.getConnectionTimeout()).isEqualTo(3000);
+		Assertions.assertThat(replica.getMaximumPoolSize()).isEqualTo(2);
+		Assertions.assertThat(replica.getConnectionTimeout()).isEqualTo(3000);
+	}
+}
@@ -0,0 +1,129 @@
+package org.cursos.libraryapi.resource.writebehind;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.assertj.core.api.Assertions;
+import org.cursos.libraryapi.resource.model.entity.Book;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class BookUpdateQueueTest {
+	
+	List<List<Book>> batches = new CopyOnWriteArrayList<>();
+	
+	MeterRegistry meterRegistry = new SimpleMeterRegistry();
+	
+	@Test
+	@DisplayName("Should keep only the last pending update of a book.")
+	public void coalesceTest() throws Exception {
+		try (BookUpdateQueue queue = new BookUpdateQueue(10, 10, 60000, batches::add, meterRegistry)) {
+			queue.enqueue(Book.builder().id(1L).title("First").build());
+			queue.enqueue(Book.builder().id(2L).title("Other").build());
+			queue.enqueue(Book.builder().id(1L).title("Second").build());
+			
+			Assertions.assertThat(queue.depth()).isEqualTo(2);
+			Assertions.assertThat(meterRegistry.get("library.books.writebehind.depth").gauge().value()).isEqualTo(2);
+			
+			queue.flush();
+		}
+		
+		Assertions.assertThat(batches).hasSize(1);
+		Assertions.assertThat(batches.get(0)).extracting(Book::getTitle).containsExactly("Second", "Other");
+	}
+	
+	@Test
+	@DisplayName("Should write a batch as soon as it is full and acknowledge once written.")
+	public void flushOnSizeTest() {
+		try (BookUpdateQueue queue = new BookUpdateQueue(10, 2, 60000, batches::add, meterRegistry)) {
+			queue.enqueue(Book.builder().id(1L).build());
+			boolean written = queue.submit(Book.builder().id(2L).build(), BookUpdateQueue.Ack.FLUSHED, 5000);
+			
+			Assertions.assertThat(written).isTrue();
+			Assertions.assertThat(batches).hasSize(1);
+			Assertions.assertThat(batches.get(0)).hasSize(2);
+			Assertions.assertThat(meterRegistry.get("library.books.writebehind.batch.size").summary().totalAmount()).isEqualTo(2);
+		} catch (InterruptedException e) {
+			Assertions.fail("Interrupted while closing the queue", e);
+		}
+	}
+	
+	@Test
+	@DisplayName("Should flush pending updates on the timer.")
+	public void flushOnTimeTest() throws Exception {
+		try (BookUpdateQueue queue = new BookUpdateQueue(10, 10, 20, batches::add, meterRegistry)) {
+			boolean written = queue.submit(Book.builder().id(1L).build(), BookUpdateQueue.Ack.FLUSHED, 5000);
+			
+			Assertions.assertThat(written).isTrue();
+			Assertions.assertThat(queue.depth()).isZero();
+		}
+	}
+	
+	@Test
+	@DisplayName("Should acknowledge accepted updates before they are written.")
+	public void acceptedAckTest() throws Exception {
+		try (BookUpdateQueue queue = new BookUpdateQueue(10, 10, 60000, batches::add, meterRegistry)) {
+			boolean written = queue.submit(Book.builder().id(1L).build(), BookUpdateQueue.Ack.ACCEPTED, 5000);
+			
+			Assertions.assertThat(written).isFalse();
+			Assertions.assertThat(batches).isEmpty();
+		}
+		
+		Assertions.assertThat(batches).hasSize(1);
+	}
+	
+	@Test
+	@DisplayName("Should reject new books when the queue is full.")
+	public void rejectWhenFullTest() throws Exception {
+		try (BookUpdateQueue queue = new BookUpdateQueue(1, 10, 60000, batches::add, meterRegistry)) {
+			queue.enqueue(Book.builder().id(1L).build());
+			queue.enqueue(Book.builder().id(1L).title("Coalesced").build());
+			
+			Throwable exception = Assertions.catchThrowable(() -> queue.enqueue(Book.builder().id(2L).build()));
+			
+			Assertions.assertThat(exception).isInstanceOf(RejectedExecutionException.class);
+		}
+	}
+	
+	@Test
+	@DisplayName("Should fail the acknowledgement when the batch cannot be written.")
+	public void writeFailureTest() throws Exception {
+		try (BookUpdateQueue queue = new BookUpdateQueue(10, 1, 60000, books -> {
+				throw new IllegalStateException("boom");
+			}, meterRegistry)) {
+			Throwable exception = Assertions.catchThrowable(() ->
+				queue.submit(Book.builder().id(1L).build(), BookUpdateQueue.Ack.FLUSHED, 5000));
+			
+			Assertions.assertThat(exception).isInstanceOf(IllegalStateException.class).hasMessage("boom");
+			Assertions.assertThat(meterRegistry.get("library.books.writebehind.failures").counter().count()).isEqualTo(1);
+		}
+	}
+	
+	@Test
+	@DisplayName("Should write the rest of a failed batch one by one and fail only the bad update.")
+	public void poisonedUpdateTest() throws Exception {
+		try (BookUpdateQueue queue = new BookUpdateQueue(10, 10, 60000, books -> {
+				if(books.stream().anyMatch(book -> book.getTitle() == null)) {
+					throw new IllegalStateException("boom");
+				}
+				batches.add(books);
+			}, meterRegistry)) {
+			CompletableFuture<Void> first = queue.enqueue(Book.builder().id(1L).title("First").build());
+			CompletableFuture<Void> poisoned = queue.enqueue(Book.builder().id(2L).build());
+			CompletableFuture<Void> third = queue.enqueue(Book.builder().id(3L).title("Third").build());
+			
+			queue.flush();
+			
+			Assertions.assertThat(first).isCompleted().isNotCompletedExceptionally();
+			Assertions.assertThat(third).isCompleted().isNotCompletedExceptionally();
+			Assertions.assertThat(poisoned).isCompletedExceptionally();
+			Assertions.assertThat(batches).extracting(batch -> batch.get(0).getId()).containsExactly(1L, 3L);
+			Assertions.assertThat(meterRegistry.get("library.books.writebehind.failures").counter().count()).isEqualTo(1);
+		}
+	}
+}
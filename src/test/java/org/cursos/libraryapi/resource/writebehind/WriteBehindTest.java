@@ -0,0 +1,79 @@
+package org.cursos.libraryapi.resource.writebehind;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.assertj.core.api.Assertions;
+import org.cursos.libraryapi.resource.model.dto.BookDTO;
+import org.cursos.libraryapi.resource.model.entity.Book;
+import org.cursos.libraryapi.resource.repository.BookRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+		"library.write-behind.enabled=true",
+		"library.write-behind.flush-interval-ms=20",
+		"spring.datasource.url=jdbc:h2:mem:writebehind;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE" })
+@AutoConfigureMockMvc
+public class WriteBehindTest {
+	
+	static String BOOK_API = "/api/books";
+	
+	@Autowired
+	MockMvc mvc;
+	
+	@Autowired
+	BookRepository repository;
+	
+	@Autowired
+	BookUpdateQueue queue;
+	
+	@Test
+	@DisplayName("Should acknowledge a write-behind update once it is written.")
+	public void flushedUpdateTest() throws Exception {
+		Book book = repository.save(Book.builder().title("My book").author("Author").isbn("wb-1").build());
+		String url = BOOK_API.concat("/" + book.getId());
+		String json = new ObjectMapper().writeValueAsString(BookDTO.builder().title("New title").author("Author").build());
+		
+		mvc.perform(MockMvcRequestBuilders.put(url).contentType(MediaType.APPLICATION_JSON).content(json))
+			.andExpect(status().isOk());
+		
+		mvc.perform(MockMvcRequestBuilders.get(url).accept(MediaType.APPLICATION_JSON))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("title").value("New title"))
+			.andExpect(jsonPath("version").value(1));
+	}
+	
+	@Test
+	@DisplayName("Should answer 202 to clients preferring an asynchronous update.")
+	public void acceptedUpdateTest() throws Exception {
+		Book book = repository.save(Book.builder().title("My book").author("Author").isbn("wb-2").build());
+		String url = BOOK_API.concat("/" + book.getId());
+		String json = new ObjectMapper().writeValueAsString(BookDTO.builder().title("Later").author("Author").build());
+		
+		mvc.perform(MockMvcRequestBuilders.put(url).contentType(MediaType.APPLICATION_JSON)
+				.header("Prefer", "respond-async").content(json))
+			.andExpect(status().isAccepted());
+		
+		String title = null;
+		for(int i = 0; i < 250 && !"Later".equals(title); i++) {
+			Thread.sleep(20);
+			title = repository.findById(book.getId()).get().getTitle();
+		}
+		Assertions.assertThat(title).isEqualTo("Later");
+		Assertions.assertThat(queue.depth()).isZero();
+	}
+}